@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Chạy cùng một kịch bản k6 với platform thread và virtual thread rồi in p95/p99 để so sánh.
+# Yêu cầu: k6, jq, DB/SMTP env giống khi chạy ứng dụng, và một tài khoản đã kích hoạt
+# (LOGIN_EMAIL / LOGIN_PASSWORD).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PORT="${PORT:-8081}"
+BASE_URL="http://localhost:${PORT}"
+mkdir -p loadtest/results
+
+./gradlew -q bootJar
+JAR="$(ls build/libs/*.jar | grep -v plain | head -n 1)"
+
+for mode in platform virtual; do
+  virtual=false
+  [ "$mode" = virtual ] && virtual=true
+  echo ">>> mode=${mode}"
+  java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" \
+    > "loadtest/results/${mode}-app.log" 2>&1 &
+  APP_PID=$!
+  trap 'kill $APP_PID 2>/dev/null || true' EXIT
+  until curl -sf "${BASE_URL}/actuator/health" > /dev/null; do sleep 1; done
+
+  k6 run -e BASE_URL="$BASE_URL" -e MODE="$mode" loadtest/users-endpoints.js
+  curl -sf "${BASE_URL}/actuator/metrics/jvm.threads.live" > "loadtest/results/${mode}-threads.json" || true
+
+  kill "$APP_PID"; wait "$APP_PID" 2>/dev/null || true
+  trap - EXIT
+done
+
+for mode in platform virtual; do
+  echo "== ${mode}"
+  jq -r '.metrics | to_entries[]
+         | select(.key == "login_latency" or .key == "profile_latency" or .key == "http_req_failed")
+         | "\(.key): \(.value | tostring)"' "loadtest/results/${mode}.json"
+done
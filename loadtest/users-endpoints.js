@@ -0,0 +1,79 @@
+// k6 load test for /api/users endpoints. Used by run-compare.sh to compare thread modes.
+//   k6 run -e BASE_URL=http://localhost:8081 -e MODE=virtual loadtest/users-endpoints.js
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const LOGIN_EMAIL = __ENV.LOGIN_EMAIL || 'loadtest@example.com';
+const LOGIN_PASSWORD = __ENV.LOGIN_PASSWORD || 'loadtest-123';
+
+const loginLatency = new Trend('login_latency', true);
+const profileLatency = new Trend('profile_latency', true);
+
+export const options = {
+    scenarios: {
+        // Login storm: bcrypt/Argon2 bound
+        login: {
+            executor: 'constant-arrival-rate',
+            exec: 'login',
+            rate: Number(__ENV.LOGIN_RATE || 50),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '60s',
+            preAllocatedVUs: 100,
+            maxVUs: 1000,
+        },
+        // Authenticated reads: must stay fast while the login storm runs
+        profile: {
+            executor: 'constant-arrival-rate',
+            exec: 'profile',
+            rate: Number(__ENV.PROFILE_RATE || 500),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '60s',
+            preAllocatedVUs: 100,
+            maxVUs: 1000,
+        },
+        // OTP / forgot-password: DB + mail bound
+        forgot: {
+            executor: 'constant-arrival-rate',
+            exec: 'forgotPassword',
+            rate: Number(__ENV.FORGOT_RATE || 20),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '60s',
+            preAllocatedVUs: 20,
+            maxVUs: 200,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const res = http.post(`${BASE_URL}/api/users/login`,
+        JSON.stringify({ email: LOGIN_EMAIL, password: LOGIN_PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    return { token: res.json('data.jwtToken') };
+}
+
+export function login() {
+    const res = http.post(`${BASE_URL}/api/users/login`,
+        JSON.stringify({ email: LOGIN_EMAIL, password: LOGIN_PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    loginLatency.add(res.timings.duration);
+    check(res, { 'login 200/503': (r) => r.status === 200 || r.status === 503 });
+}
+
+export function profile(data) {
+    const res = http.get(`${BASE_URL}/profile`, { headers: { Authorization: `Bearer ${data.token}` } });
+    profileLatency.add(res.timings.duration);
+    check(res, { 'profile not 5xx': (r) => r.status < 500 });
+}
+
+export function forgotPassword() {
+    const res = http.post(`${BASE_URL}/api/users/forgot-password?email=${encodeURIComponent(LOGIN_EMAIL)}`);
+    check(res, { 'forgot-password handled': (r) => r.status < 500 || r.status === 503 });
+}
+
+export function handleSummary(data) {
+    const mode = __ENV.MODE || 'unknown';
+    return { [`loadtest/results/${mode}.json`]: JSON.stringify(data, null, 2) };
+}
@@ -0,0 +1,83 @@
+package fpt.sep.apjf.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU per authenticated request through {@link AuthTokenFilter}: the single-parse path versus the
+ * old validate + getUsername + getRoles sequence (three signature checks). Runs on 4 threads to
+ * approximate a loaded request pool; compare us/op and gc.alloc.rate.norm. The {@code cacheSize}
+ * parameter toggles the {@link VerifiedTokenCache} in front of the parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class AuthTokenFilterBenchmark {
+
+    /** 0 = cache tắt (chỉ parse một lần), 10000 = verified-token cache bật. */
+    @Param({"0", "10000"})
+    public long cacheSize;
+
+    private JwtUtils jwtUtils;
+    private AuthTokenFilter filter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils(new JwtKeyManager(JwtUtilsBenchmark.SECRET), 3_600_000);
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache",
+                new VerifiedTokenCache(jwtUtils, new SimpleMeterRegistry(), cacheSize, Duration.ofMinutes(5)));
+        // Repository chỉ dùng khi ghi/poll; ở đây chỉ đo phần tra cứu trong bộ nhớ
+        ReflectionTestUtils.setField(filter, "accessTokenDenylist",
+                new AccessTokenDenylist(null, null, null, jwtUtils, new SimpleMeterRegistry(), 100_000));
+        token = jwtUtils.generateTokenFromUsername(
+                User.withUsername("bench@example.com").password("x").authorities("ROLE_USER", "ROLE_ADMIN").build());
+    }
+
+    @Benchmark
+    public Object singleParseFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    @Benchmark
+    public Object tripleParseLegacy() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        String jwt = jwtUtils.getJwtFromHeader(request);
+        if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+            String username = jwtUtils.getUsernameFromJwtToken(jwt);
+            List<String> roles = jwtUtils.getRolesFromJwtToken(jwt);
+            return new UsernamePasswordAuthenticationToken(username, null,
+                    roles.stream().map(SimpleGrantedAuthority::new).toList());
+        }
+        return null;
+    }
+}
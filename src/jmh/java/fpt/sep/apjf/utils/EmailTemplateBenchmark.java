@@ -0,0 +1,57 @@
+package fpt.sep.apjf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering one OTP email body: the old two-pass {@link String#format} against the
+ * precompiled {@link EmailTemplateEngine}. Run with {@code -prof gc} to compare allocation per render.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class EmailTemplateBenchmark {
+
+    private static final String EMAIL = "student@example.com";
+    private static final String OTP = "482913";
+
+    private EmailTemplateEngine engine;
+
+    @Setup
+    public void setUp() {
+        engine = new EmailTemplateEngine("https://apjf.example/auth/verify-account",
+                "https://apjf.example/auth/reset-password", "vi");
+    }
+
+    @Benchmark
+    public String legacyStringFormat() {
+        String verifyLink = String.format("http://localhost:8080/auth/verify-account?email=%s&otp=%s", EMAIL, OTP);
+        return String.format("""
+                <html>
+                  <body>
+                    <p>Chào bạn,</p>
+                    <p>Vui lòng bấm vào link bên dưới:</p>
+                    <a href="%s" target="_blank">Click để thực hiện</a>
+                    <p>OTP của bạn là: <b>%s</b></p>
+                  </body>
+                </html>
+                """, verifyLink, OTP);
+    }
+
+    @Benchmark
+    public EmailTemplateEngine.RenderedEmail compiledTemplate() {
+        return engine.render(VerifyTokenType.REGISTRATION, "vi", EMAIL, OTP);
+    }
+}
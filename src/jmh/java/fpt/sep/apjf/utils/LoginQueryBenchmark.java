@@ -0,0 +1,106 @@
+package fpt.sep.apjf.utils;
+
+import fpt.sep.apjf.entity.Authority;
+import fpt.sep.apjf.entity.User;
+import fpt.sep.apjf.repository.UserLoginRow;
+import fpt.sep.apjf.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login lookup against H2: loading the {@link User} entity (plus its eager authorities) against the
+ * {@link UserRepository#LOGIN_ROWS_SELECT} projection. Each op uses a fresh {@link EntityManager},
+ * as a request would; run with the gc profiler to compare bytes allocated per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoginQueryBenchmark {
+
+    private static final int USERS = 5_000;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Authority.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:login;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.SHOW_SQL, "false")
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            Authority userRole = new Authority(null, "ROLE_USER");
+            Authority staffRole = new Authority(null, "ROLE_STAFF");
+            session.persist(userRole);
+            session.persist(staffRole);
+            for (int i = 0; i < USERS; i++) {
+                User user = new User();
+                user.setUsername("user" + i);
+                user.setEmail(email(i));
+                user.setPassword("$argon2id$v=19$m=19456,t=2,p=1$c2FsdHNhbHRzYWx0$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNo");
+                user.setAddress("123 Nguyễn Văn Linh, Quận 7, TP. Hồ Chí Minh");
+                user.setPhone("0901234567");
+                user.setAvatar("https://cdn.example.com/avatars/" + i + ".png");
+                user.setEnabled(true);
+                user.setAuthorities(List.of(userRole, staffRole));
+                session.persist(user);
+                if (i % 500 == 0) {
+                    session.flush();
+                    session.clear();
+                    userRole = session.merge(userRole);
+                    staffRole = session.merge(staffRole);
+                }
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+
+    @Benchmark
+    public int entity() {
+        String email = email(ThreadLocalRandom.current().nextInt(USERS));
+        try (EntityManager em = sessionFactory.createEntityManager()) {
+            User user = em.createQuery("select u from User u where u.email = :email", User.class)
+                    .setParameter("email", email)
+                    .getSingleResult();
+            return user.getPassword().length() + user.getAuthorities().size();
+        }
+    }
+
+    @Benchmark
+    public int projection() {
+        String email = email(ThreadLocalRandom.current().nextInt(USERS));
+        try (EntityManager em = sessionFactory.createEntityManager()) {
+            List<UserLoginRow> rows = em.createQuery(UserRepository.LOGIN_ROWS_SELECT + "where u.email = :email",
+                            UserLoginRow.class)
+                    .setParameter("email", email)
+                    .getResultList();
+            return rows.get(0).password().length() + rows.size();
+        }
+    }
+}
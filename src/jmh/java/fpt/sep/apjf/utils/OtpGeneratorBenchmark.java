@@ -0,0 +1,55 @@
+package fpt.sep.apjf.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP generation under contention (8 threads): a new {@link SecureRandom} per call (previous code),
+ * one shared generator without the pool, and the pre-generated ring buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(8)
+public class OtpGeneratorBenchmark {
+
+    private OtpUtils shared;
+    private OtpUtils pooled;
+
+    @Setup
+    public void setUp() {
+        shared = new OtpUtils(6, "0123456789", 0);
+        pooled = new OtpUtils(6, "0123456789", 4096);
+    }
+
+    @TearDown
+    public void tearDown() {
+        shared.destroy();
+        pooled.destroy();
+    }
+
+    @Benchmark
+    public String newSecureRandomPerCall() {
+        return String.valueOf(100000 + new SecureRandom().nextInt(900000));
+    }
+
+    @Benchmark
+    public String sharedSecureRandom() {
+        return shared.generateOTP();
+    }
+
+    @Benchmark
+    public String ringBuffer() {
+        return pooled.generateOTP();
+    }
+}
@@ -0,0 +1,69 @@
+package fpt.sep.apjf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.service.VerifyTokenStore.StoredToken;
+import fpt.sep.apjf.service.impl.InMemoryVerifyTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP check as done in {@code verifyAccount}: store lookup plus comparison, plaintext
+ * {@link String#equals} (previous code) against the HMAC digest with constant-time compare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OtpLookupBenchmark {
+
+    private static final long USER_ID = 42L;
+    private static final String OTP = "482913";
+
+    private InMemoryVerifyTokenStore plaintextStore;
+    private InMemoryVerifyTokenStore hashedStore;
+    private OtpHasher otpHasher;
+
+    @Setup
+    public void setUp() {
+        otpHasher = new OtpHasher(Base64.getEncoder().encodeToString(new byte[32]));
+        plaintextStore = new InMemoryVerifyTokenStore(new SimpleMeterRegistry(), Duration.ofSeconds(1));
+        hashedStore = new InMemoryVerifyTokenStore(new SimpleMeterRegistry(), Duration.ofSeconds(1));
+        LocalDateTime now = LocalDateTime.now();
+        for (long userId = 0; userId < 10_000; userId++) {
+            plaintextStore.replace(new StoredToken(userId, VerifyTokenType.REGISTRATION,
+                    OTP.getBytes(StandardCharsets.UTF_8), now, now.plusHours(1)));
+            hashedStore.replace(new StoredToken(userId, VerifyTokenType.REGISTRATION,
+                    otpHasher.hash(userId, VerifyTokenType.REGISTRATION, OTP), now, now.plusHours(1)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        plaintextStore.close();
+        hashedStore.close();
+    }
+
+    @Benchmark
+    public boolean plaintextEquals() {
+        StoredToken token = plaintextStore.find(USER_ID, VerifyTokenType.REGISTRATION).orElseThrow();
+        return new String(token.tokenHash(), StandardCharsets.UTF_8).equals(OTP);
+    }
+
+    @Benchmark
+    public boolean hmacConstantTime() {
+        StoredToken token = hashedStore.find(USER_ID, VerifyTokenType.REGISTRATION).orElseThrow();
+        return otpHasher.matches(token.tokenHash(), USER_ID, VerifyTokenType.REGISTRATION, OTP);
+    }
+}
@@ -0,0 +1,52 @@
+package fpt.sep.apjf.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verify latency per algorithm and cost, i.e. what one login pays on a request thread.
+ * Format: {@code bcrypt-<strength>} or {@code argon2-<memoryKiB>-<iterations>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 5)
+public class PasswordEncoderBenchmark {
+
+    @Param({"bcrypt-10", "bcrypt-11", "bcrypt-12", "bcrypt-13",
+            "argon2-19456-2", "argon2-19456-4", "argon2-47104-1", "argon2-65536-3"})
+    public String cost;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = cost.split("-");
+        encoder = switch (parts[0]) {
+            case "bcrypt" -> new BCryptPasswordEncoder(Integer.parseInt(parts[1]));
+            case "argon2" -> new Argon2PasswordEncoder(16, 32, 1, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            default -> throw new IllegalArgumentException(cost);
+        };
+        hash = encoder.encode("Sup3r-secret!");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return encoder.matches("Sup3r-secret!", hash);
+    }
+}
@@ -0,0 +1,87 @@
+package fpt.sep.apjf.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.config.AsyncConfig;
+import fpt.sep.apjf.service.impl.TokenIntrospectionServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code /api/tokens/introspect} without HTTP: the {@code tokens} column is tokens/s,
+ * the primary score is batches/s. {@code parallel=false} keeps the whole batch on the calling thread.
+ * The verified-token cache is off so every token pays the signature check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TokenIntrospectionBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int batchSize;
+
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    private ThreadPoolTaskExecutor executor;
+    private TokenIntrospectionServiceImpl service;
+    private List<String> tokens;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = new JwtUtils(new JwtKeyManager(JwtUtilsBenchmark.SECRET), 3_600_000);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        executor = new AsyncConfig().tokenVerifyExecutor(0, 256);
+        service = new TokenIntrospectionServiceImpl(
+                new VerifiedTokenCache(jwtUtils, meterRegistry, 0, Duration.ofMinutes(5)),
+                // Repository chỉ dùng khi ghi/poll; ở đây chỉ đo phần tra cứu trong bộ nhớ
+                new AccessTokenDenylist(null, null, null, jwtUtils, meterRegistry, 100_000),
+                new ObjectMapper(), executor, meterRegistry, 0, parallel ? 32 : Integer.MAX_VALUE);
+        tokens = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            tokens.add(jwtUtils.generateTokenFromUsername(
+                    User.withUsername("user" + i + "@example.com").password("x").authorities("ROLE_USER").build()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void introspect(TokenCounter counter) throws IOException {
+        service.introspect(tokens, OutputStream.nullOutputStream());
+        counter.tokens += batchSize;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCounter {
+
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+}
@@ -1,23 +1,90 @@
 package fpt.sep.apjf.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
-    @Bean(name = "taskExecutor")
-    public TaskExecutor taskExecutor() {
+    /**
+     * Pool riêng cho bcrypt/Argon2: số thread bằng số core, hàng đợi có giới hạn, đầy thì từ chối ngay.
+     */
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${spring.app.passwordHashThreads:0}") int threads,
+            @Value("${spring.app.passwordHashQueue:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("PasswordHash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool băm mật khẩu cho import hàng loạt, tách khỏi {@code passwordHashExecutor} để login không bị từ chối
+     * trong lúc import; mặc định nửa số core. Hàng đợi đầy thì thread import tự băm (chậm lại, không lỗi).
+     */
+    @Bean(name = "importHashExecutor")
+    public ThreadPoolTaskExecutor importHashExecutor(
+            @Value("${spring.app.importHashThreads:0}") int threads,
+            @Value("${spring.app.importHashQueue:256}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ImportHash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool xác thực chữ ký JWT cho introspection theo lô: số thread bằng số core; hàng đợi đầy thì
+     * thread gọi tự xử lý phần việc của mình (không từ chối, chỉ chậm lại).
+     */
+    @Bean(name = "tokenVerifyExecutor")
+    public ThreadPoolTaskExecutor tokenVerifyExecutor(
+            @Value("${spring.app.introspectThreads:0}") int threads,
+            @Value("${spring.app.introspectQueue:256}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("TokenVerify-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool cho response bất đồng bộ của MVC ({@code StreamingResponseBody}: export NDJSON, introspection):
+     * có giới hạn để mỗi stream không tạo một thread mới; đầy thì từ chối (503).
+     */
+    @Bean(name = "mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(
+            @Value("${spring.app.streamThreads:8}") int threads,
+            @Value("${spring.app.streamQueue:32}") int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2); // Số thread tối thiểu
-        executor.setMaxPoolSize(5);  // Số thread tối đa
-        executor.setQueueCapacity(100); // Dung lượng hàng đợi
-        executor.setThreadNamePrefix("AsyncThread-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("MvcStream-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
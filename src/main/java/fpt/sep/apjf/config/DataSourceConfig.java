@@ -0,0 +1,31 @@
+package fpt.sep.apjf.config;
+
+import fpt.sep.apjf.utils.SlowQueryLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource wiring. Pool, statement-cache and batch settings live in {@code application.yml}
+ * ({@code spring.datasource.hikari}, {@code spring.jpa.properties.hibernate.jdbc}); here the pooled
+ * DataSource is wrapped with {@link SlowQueryLog}.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Chỉ bọc bean "dataSource" do Spring Boot tạo (HikariDataSource)
+                return bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+                        ? slowQueryLog.getObject().wrap(dataSource)
+                        : bean;
+            }
+        };
+    }
+}
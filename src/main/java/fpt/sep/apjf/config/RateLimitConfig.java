@@ -0,0 +1,28 @@
+package fpt.sep.apjf.config;
+
+import fpt.sep.apjf.utils.InMemoryRateLimiterBackend;
+import fpt.sep.apjf.utils.JdbcRateLimiterBackend;
+import fpt.sep.apjf.utils.RateLimiterBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+
+@Configuration
+public class RateLimitConfig {
+
+    /**
+     * {@code memory}: hạn mức riêng từng instance; {@code jdbc}: dùng chung qua bảng {@code rate_limit_counter}.
+     */
+    @Bean
+    public RateLimiterBackend rateLimiterBackend(@Value("${spring.app.rateLimitBackend:memory}") String backend,
+                                                 JdbcTemplate jdbcTemplate) {
+        return switch (backend) {
+            case "memory" -> new InMemoryRateLimiterBackend(Clock.systemUTC());
+            case "jdbc" -> new JdbcRateLimiterBackend(jdbcTemplate, Clock.systemUTC());
+            default -> throw new IllegalArgumentException("Unsupported spring.app.rateLimitBackend: " + backend);
+        };
+    }
+}
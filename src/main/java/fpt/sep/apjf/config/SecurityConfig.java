@@ -2,8 +2,14 @@ package fpt.sep.apjf.config;
 
 import fpt.sep.apjf.utils.AuthEntryPointJwt;
 import fpt.sep.apjf.utils.AuthTokenFilter;
+import fpt.sep.apjf.utils.BoundedPasswordEncoder;
+import fpt.sep.apjf.utils.PasswordHashCalibrator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -12,7 +18,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -50,7 +55,11 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashCalibrator passwordHashCalibrator,
+                                           @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor passwordHashExecutor,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${spring.app.passwordHashRetryAfterSeconds:2}") long retryAfterSeconds) {
+        return new BoundedPasswordEncoder(passwordHashCalibrator.buildEncoder(), passwordHashExecutor,
+                meterRegistry, retryAfterSeconds);
     }
 }
\ No newline at end of file
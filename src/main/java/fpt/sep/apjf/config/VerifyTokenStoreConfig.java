@@ -0,0 +1,42 @@
+package fpt.sep.apjf.config;
+
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.repository.VerifyTokenRepository;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import fpt.sep.apjf.service.impl.InMemoryVerifyTokenStore;
+import fpt.sep.apjf.service.impl.JpaVerifyTokenStore;
+import fpt.sep.apjf.service.impl.WriteBehindVerifyTokenStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class VerifyTokenStoreConfig {
+
+    /**
+     * Chọn nơi lưu OTP theo {@code spring.app.otpStore}: jpa (mặc định) | memory | write-behind.
+     * memory và write-behind giữ OTP trong RAM của từng instance, chỉ dùng khi chạy một instance.
+     */
+    @Bean
+    public VerifyTokenStore verifyTokenStore(@Value("${spring.app.otpStore:jpa}") String mode,
+                                             @Value("${spring.app.otpExpiryTick:PT1S}") Duration expiryTick,
+                                             @Value("${spring.app.otpWriteBehindBatchSize:500}") int batchSize,
+                                             VerifyTokenRepository verifyTokenRepository,
+                                             UserRepository userRepository,
+                                             TransactionTemplate transactionTemplate,
+                                             MeterRegistry meterRegistry) {
+        return switch (mode) {
+            case "jpa" -> new JpaVerifyTokenStore(verifyTokenRepository, userRepository);
+            case "memory" -> new InMemoryVerifyTokenStore(meterRegistry, expiryTick);
+            case "write-behind" -> new WriteBehindVerifyTokenStore(
+                    new InMemoryVerifyTokenStore(meterRegistry, expiryTick),
+                    new JpaVerifyTokenStore(verifyTokenRepository, userRepository),
+                    transactionTemplate, meterRegistry, batchSize);
+            default -> throw new IllegalArgumentException("Unsupported spring.app.otpStore: " + mode);
+        };
+    }
+}
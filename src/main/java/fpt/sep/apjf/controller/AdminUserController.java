@@ -0,0 +1,45 @@
+package fpt.sep.apjf.controller;
+
+import fpt.sep.apjf.dto.ApiResponseDTO;
+import fpt.sep.apjf.dto.UserPageDTO;
+import fpt.sep.apjf.service.AdminUserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Admin user search. Pages are keyset-based: pass the previous page's {@code nextCursor} as
+ * {@code after}. {@code /export} streams every match as NDJSON.
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminUserController {
+
+    private final AdminUserService adminUserService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponseDTO> search(@RequestParam(required = false) String role,
+                                                 @RequestParam(required = false) String email,
+                                                 @RequestParam(defaultValue = "0") long after,
+                                                 @RequestParam(defaultValue = "50") int size) {
+        UserPageDTO page = adminUserService.search(role, email, after, size);
+        return ResponseEntity.ok(new ApiResponseDTO(true, "OK", null, page));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String role,
+                                                        @RequestParam(required = false) String email) {
+        StreamingResponseBody body = out -> adminUserService.export(role, email, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
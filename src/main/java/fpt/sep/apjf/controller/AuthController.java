@@ -3,8 +3,12 @@ package fpt.sep.apjf.controller;
 import fpt.sep.apjf.dto.ApiResponseDTO;
 import fpt.sep.apjf.dto.LoginDTO;
 import fpt.sep.apjf.dto.LoginResponse;
+import fpt.sep.apjf.dto.RefreshTokenRequest;
 import fpt.sep.apjf.dto.RegisterDTO;
+import fpt.sep.apjf.service.RefreshTokenService;
 import fpt.sep.apjf.service.UserService;
+import fpt.sep.apjf.utils.JwtUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -17,6 +21,8 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final JwtUtils jwtUtils;
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponseDTO> login(@Valid @RequestBody LoginDTO loginDTO) {
@@ -25,6 +31,18 @@ public class AuthController {
                 true, "Đăng nhập thành công", null, payload));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponseDTO> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        LoginResponse payload = refreshTokenService.refresh(request.refreshToken());
+        return ResponseEntity.ok(new ApiResponseDTO(true, "Token refreshed", null, payload));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponseDTO> logout(HttpServletRequest request) {
+        refreshTokenService.logout(jwtUtils.getJwtFromHeader(request));
+        return ResponseEntity.ok(new ApiResponseDTO(true, "Logged out"));
+    }
+
     @PostMapping("/register")
     public ResponseEntity<ApiResponseDTO> register(@Valid @RequestBody RegisterDTO registerDTO) {
         userService.register(registerDTO);
@@ -0,0 +1,39 @@
+package fpt.sep.apjf.controller;
+
+import fpt.sep.apjf.utils.JwtKeyManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the public signing keys so resource servers can verify access tokens locally.
+ * Responses carry {@code Cache-Control} and an {@code ETag}; a matching {@code If-None-Match}
+ * gets a 304.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyManager keyManager;
+
+    @Value("${spring.app.jwksMaxAge:PT5M}")
+    private Duration maxAge;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> jwks() {
+        List<Map<String, Object>> keys = keyManager.publicJwks();
+        String etag = "\"" + Integer.toHexString(keys.hashCode()) + "\"";
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .eTag(etag)
+                .body(Map.of("keys", keys));
+    }
+}
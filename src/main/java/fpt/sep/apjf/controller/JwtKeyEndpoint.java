@@ -0,0 +1,44 @@
+package fpt.sep.apjf.controller;
+
+import fpt.sep.apjf.utils.JwtKeyManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.OptionalParameter;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint {@code /actuator/jwtkeys} to inspect, hot-rotate or reload the JWT signing keys.
+ * Not exposed over HTTP unless listed in {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "jwtkeys")
+@RequiredArgsConstructor
+public class JwtKeyEndpoint {
+
+    private final JwtKeyManager keyManager;
+
+    @ReadOperation
+    public Map<String, Object> keys() {
+        return Map.of(
+                "activeKid", keyManager.keyId(),
+                "verificationKids", keyManager.verificationKeyIds(),
+                "asymmetric", keyManager.isAsymmetric());
+    }
+
+    /**
+     * HMAC mode: rotate to {@code secret}. Keystore mode: omit {@code secret} to reload the keystore.
+     */
+    @WriteOperation
+    public Map<String, Object> rotate(@OptionalParameter String secret) {
+        if (secret == null) {
+            keyManager.reload();
+        } else {
+            keyManager.rotate(secret);
+        }
+        return keys();
+    }
+}
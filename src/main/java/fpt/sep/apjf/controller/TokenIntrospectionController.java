@@ -0,0 +1,36 @@
+package fpt.sep.apjf.controller;
+
+import fpt.sep.apjf.dto.TokenIntrospectionRequest;
+import fpt.sep.apjf.service.TokenIntrospectionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Batch token introspection for other services: up to 1000 access tokens per call, answered as NDJSON
+ * (one {@code TokenIntrospectionDTO} per line, in request order). Only for service accounts: the caller
+ * authenticates with its own access token carrying {@code ROLE_SERVICE}.
+ */
+@RestController
+@RequestMapping("/api/tokens")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('SERVICE')")
+public class TokenIntrospectionController {
+
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    @PostMapping(value = "/introspect", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> introspect(@Valid @RequestBody TokenIntrospectionRequest request) {
+        StreamingResponseBody body = out -> tokenIntrospectionService.introspect(request.tokens(), out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,52 @@
+package fpt.sep.apjf.controller;
+
+import fpt.sep.apjf.dto.ApiResponseDTO;
+import fpt.sep.apjf.dto.UserImportJobDTO;
+import fpt.sep.apjf.service.UserImportService;
+import fpt.sep.apjf.service.impl.UserImportReader.Format;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Bulk user import. The body ({@code text/csv} or {@code application/x-ndjson}) is read as a stream;
+ * progress can be polled with {@code GET /{jobId}} while it runs. A failed job is resumed by posting the
+ * same input again with {@code ?jobId=}.
+ */
+@RestController
+@RequestMapping("/api/admin/users/import")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class UserImportController {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final UserImportService userImportService;
+
+    @PostMapping(consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ApiResponseDTO> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                      @RequestParam(required = false) UUID jobId,
+                                                      InputStream body) throws IOException {
+        Format format = TEXT_CSV.isCompatibleWith(contentType) ? Format.CSV : Format.NDJSON;
+        UserImportJobDTO job = userImportService.importUsers(body, format, jobId);
+        return ResponseEntity.ok(new ApiResponseDTO(true, "Import completed", null, job));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponseDTO> getJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(new ApiResponseDTO(true, "OK", null, userImportService.getJob(jobId)));
+    }
+}
@@ -2,5 +2,5 @@ package fpt.sep.apjf.dto;
 
 import java.util.List;
 
-public record LoginResponse(String username, List<String> roles, String jwtToken) {
+public record LoginResponse(String username, List<String> roles, String jwtToken, String refreshToken) {
 }
@@ -0,0 +1,7 @@
+package fpt.sep.apjf.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequest(
+    @NotBlank String refreshToken
+) {}
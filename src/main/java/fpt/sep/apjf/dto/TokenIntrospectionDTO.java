@@ -0,0 +1,12 @@
+package fpt.sep.apjf.dto;
+
+import java.util.List;
+
+/**
+ * Kết quả introspect của token thứ {@code index} trong request. {@code active} = chữ ký hợp lệ, chưa hết hạn
+ * và chưa bị thu hồi; {@code expiresAt} tính bằng epoch second. Token không hợp lệ chỉ có {@code index}
+ * và {@code active = false}.
+ */
+public record TokenIntrospectionDTO(int index, boolean active, boolean revoked, String subject, List<String> roles,
+                                    Long expiresAt) {
+}
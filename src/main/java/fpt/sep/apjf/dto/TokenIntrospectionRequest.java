@@ -0,0 +1,10 @@
+package fpt.sep.apjf.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record TokenIntrospectionRequest(
+    @NotEmpty @Size(max = 1000) List<String> tokens
+) {}
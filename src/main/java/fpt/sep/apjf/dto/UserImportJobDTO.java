@@ -0,0 +1,12 @@
+package fpt.sep.apjf.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Tiến độ một job import. Chạy tiếp job lỗi bằng cách gửi lại cùng file kèm {@code jobId}:
+ * {@code processedRows} bản ghi đầu sẽ được bỏ qua.
+ */
+public record UserImportJobDTO(UUID id, String status, long processedRows, long importedRows, long skippedRows,
+                               long failedRows, String lastError, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,10 @@
+package fpt.sep.apjf.dto;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả keyset: {@code nextCursor} là id truyền vào {@code after} để lấy trang sau,
+ * null nếu đã hết.
+ */
+public record UserPageDTO(List<UserSummaryDTO> items, Long nextCursor) {
+}
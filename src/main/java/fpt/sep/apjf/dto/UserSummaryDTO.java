@@ -0,0 +1,7 @@
+package fpt.sep.apjf.dto;
+
+import java.util.List;
+
+public record UserSummaryDTO(Long id, String username, String email, boolean enabled, boolean emailVerified,
+                             List<String> roles) {
+}
@@ -0,0 +1,73 @@
+package fpt.sep.apjf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email chờ gửi, được ghi trong cùng transaction với {@link VerifyToken} (transactional outbox).
+ */
+@Entity
+@Table(name = "email_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Khóa duy nhất cho mỗi email, gửi kèm header để phía nhận loại bỏ bản trùng khi gửi lại.
+     */
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private VerifyToken.VerifyTokenType type;
+
+    /**
+     * OTP cần gửi; bị xóa ngay sau khi gửi thành công, thất bại hẳn hoặc quá hạn OTP.
+     */
+    @Column(name = "otp", length = 64)
+    private String otp;
+
+    /**
+     * Ngôn ngữ của template email (vi/en), lấy từ Accept-Language lúc tạo.
+     */
+    @Column(name = "locale", length = 8)
+    private String locale;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 10)
+    private OutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public enum OutboxStatus {
+        PENDING,
+        SENT,
+        FAILED
+    }
+}
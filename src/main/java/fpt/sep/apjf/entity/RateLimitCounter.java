@@ -0,0 +1,32 @@
+package fpt.sep.apjf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số lượt của một khóa rate limit trong một cửa sổ cố định, dùng khi nhiều instance chia sẻ hạn mức.
+ */
+@Entity
+@Table(name = "rate_limit_counter", indexes = @Index(name = "idx_rate_limit_counter_expires", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RateLimitCounter {
+
+    /**
+     * {@code <khóa>#<chỉ số cửa sổ>}
+     */
+    @Id
+    @Column(name = "bucket_key", length = 320)
+    private String bucketKey;
+
+    @Column(name = "hits", nullable = false)
+    private int hits;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,36 @@
+package fpt.sep.apjf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Phiên refresh token đã bị thu hồi; bản trong bộ nhớ là bloom filter của {@code RefreshTokenRevocations}.
+ */
+@Entity
+@Table(name = "refresh_token_revocation", indexes = {
+        @Index(name = "idx_refresh_token_revocation_revoked", columnList = "revoked_at"),
+        @Index(name = "idx_refresh_token_revocation_expires", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenRevocation {
+
+    @Id
+    @Column(name = "family_id")
+    private UUID familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
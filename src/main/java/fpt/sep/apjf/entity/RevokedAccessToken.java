@@ -0,0 +1,36 @@
+package fpt.sep.apjf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Access token (theo {@code jti}) hoặc cả phiên (theo {@code sid}) đã bị thu hồi trước {@code exp}.
+ */
+@Entity
+@Table(name = "revoked_access_token", indexes = {
+        @Index(name = "idx_revoked_access_token_revoked", columnList = "revoked_at"),
+        @Index(name = "idx_revoked_access_token_expires", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedAccessToken {
+
+    @Id
+    @Column(name = "token_id")
+    private UUID tokenId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
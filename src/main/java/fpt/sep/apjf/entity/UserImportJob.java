@@ -0,0 +1,62 @@
+package fpt.sep.apjf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Một lần import user hàng loạt. {@code processedRows} là checkpoint: số bản ghi đầu vào đã xử lý và commit,
+ * khi chạy tiếp với cùng file thì bỏ qua đúng số bản ghi này.
+ */
+@Entity
+@Table(name = "user_import_job")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserImportJob {
+
+    @Id
+    @Column(name = "id")
+    private UUID id;
+
+    @Column(name = "format", nullable = false, length = 8)
+    private String format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 10)
+    private ImportStatus status;
+
+    @Column(name = "processed_rows", nullable = false)
+    private long processedRows;
+
+    @Column(name = "imported_rows", nullable = false)
+    private long importedRows;
+
+    /**
+     * Bản ghi bỏ qua vì email đã tồn tại (trong DB hoặc lặp lại trong file).
+     */
+    @Column(name = "skipped_rows", nullable = false)
+    private long skippedRows;
+
+    @Column(name = "failed_rows", nullable = false)
+    private long failedRows;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum ImportStatus {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
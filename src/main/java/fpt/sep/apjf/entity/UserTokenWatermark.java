@@ -0,0 +1,38 @@
+package fpt.sep.apjf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mốc thu hồi theo user: access token có {@code iat} trước {@code notBefore} không còn hợp lệ.
+ */
+@Entity
+@Table(name = "user_token_watermark", indexes = {
+        @Index(name = "idx_user_token_watermark_updated", columnList = "updated_at"),
+        @Index(name = "idx_user_token_watermark_expires", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserTokenWatermark {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "not_before", nullable = false)
+    private LocalDateTime notBefore;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Sau thời điểm này mọi token phát hành trước {@code notBefore} đã tự hết hạn, dòng có thể xóa.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
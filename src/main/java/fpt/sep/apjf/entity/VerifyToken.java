@@ -3,10 +3,14 @@ package fpt.sep.apjf.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "verify_token")
+@Table(name = "verify_token", indexes = {
+        @Index(name = "idx_verify_token_user_type_requested", columnList = "user_id, type, requested_time desc"),
+        @Index(name = "idx_verify_token_expiration", columnList = "expiration_time")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,16 +18,26 @@ import java.time.LocalDateTime;
 @Builder
 public class VerifyToken {
 
+    /**
+     * Thời hạn của OTP và mã ký; email trong outbox chưa gửi được trong khoảng này thì bỏ.
+     */
+    public static final Duration OTP_TTL = Duration.ofMinutes(10);
+
+    // Sequence thay vì IDENTITY để INSERT được gom batch (hibernate.jdbc.batch_size)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "verify_token_seq")
+    @SequenceGenerator(name = "verify_token_seq", sequenceName = "verify_token_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private User user;
 
-    @Column(name = "token", nullable = false, length = 64)
-    private String token;
+    /**
+     * HMAC-SHA256 của OTP (xem {@code OtpHasher}), không lưu OTP gốc.
+     */
+    @Column(name = "token_hash", length = 32)
+    private byte[] tokenHash;
 
     @Column(name = "requested_time", nullable = false)
     private LocalDateTime requestedTime;
@@ -2,8 +2,11 @@ package fpt.sep.apjf.exception;
 
 import fpt.sep.apjf.dto.ApiResponseDTO;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -27,6 +30,29 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponseDTO(false, ex.getMessage(), "NOT_FOUND", null));
     }
 
+    @ExceptionHandler(BadCredentialsException.class)
+    public ResponseEntity<ApiResponseDTO> handleBadCredentials(BadCredentialsException ex) {
+        return ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED)
+                .body(new ApiResponseDTO(false, ex.getMessage(), "UNAUTHORIZED", null));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponseDTO> handleServiceBusy(ServiceBusyException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponseDTO(false, ex.getMessage(), "SERVICE_BUSY", null));
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ApiResponseDTO> handleTaskRejected(TaskRejectedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponseDTO(false, "Hệ thống đang bận, vui lòng thử lại sau.", "SERVICE_BUSY", null));
+    }
+
     @ExceptionHandler(AppException.class)
     public ResponseEntity<ApiResponseDTO> handleAppException(AppException ex) {
         return ResponseEntity
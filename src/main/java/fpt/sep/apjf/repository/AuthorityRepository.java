@@ -0,0 +1,9 @@
+package fpt.sep.apjf.repository;
+
+import fpt.sep.apjf.entity.Authority;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AuthorityRepository extends JpaRepository<Authority, Long> {
+}
@@ -0,0 +1,34 @@
+package fpt.sep.apjf.repository;
+
+import fpt.sep.apjf.entity.EmailOutbox;
+import fpt.sep.apjf.entity.EmailOutbox.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Lấy một lô email đến hạn và khóa các dòng đó; timeout -2 = SKIP LOCKED nên nhiều node
+     * có thể cùng chạy relay mà không gửi trùng.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from EmailOutbox o where o.status = :status and o.nextAttemptAt <= :now order by o.id")
+    List<EmailOutbox> findDueForUpdate(@Param("status") OutboxStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    @Modifying
+    @Query("delete from EmailOutbox o where o.status = :status and o.createdAt < :before")
+    int deleteByStatusAndCreatedAtBefore(@Param("status") OutboxStatus status, @Param("before") LocalDateTime before);
+}
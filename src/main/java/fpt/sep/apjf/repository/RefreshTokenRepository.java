@@ -0,0 +1,33 @@
+package fpt.sep.apjf.repository;
+
+import fpt.sep.apjf.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    List<RefreshToken> findByUserId(Long userId);
+
+    /**
+     * Xoay vòng có điều kiện: chỉ thành công nếu generation chưa bị request khác đổi.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.generation = t.generation + 1, t.tokenHash = :tokenHash, "
+            + "t.rotatedAt = :now, t.expiresAt = :expiresAt "
+            + "where t.familyId = :familyId and t.generation = :generation")
+    int rotate(@Param("familyId") UUID familyId,
+               @Param("generation") int generation,
+               @Param("tokenHash") byte[] tokenHash,
+               @Param("now") LocalDateTime now,
+               @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
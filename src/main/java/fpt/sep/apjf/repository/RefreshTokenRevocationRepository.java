@@ -0,0 +1,24 @@
+package fpt.sep.apjf.repository;
+
+import fpt.sep.apjf.entity.RefreshTokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface RefreshTokenRevocationRepository extends JpaRepository<RefreshTokenRevocation, UUID> {
+
+    /**
+     * Thu hồi mới (từ mọi instance) kể từ {@code since}, còn hiệu lực tại {@code now}.
+     */
+    @Query("select r from RefreshTokenRevocation r where r.revokedAt > :since and r.expiresAt > :now")
+    List<RefreshTokenRevocation> findRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from RefreshTokenRevocation r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
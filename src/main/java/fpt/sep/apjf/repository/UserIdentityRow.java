@@ -0,0 +1,7 @@
+package fpt.sep.apjf.repository;
+
+/**
+ * Email và username đã có trong {@code users}, để import bỏ qua/báo trùng cả lô bằng một query.
+ */
+public record UserIdentityRow(String email, String username) {
+}
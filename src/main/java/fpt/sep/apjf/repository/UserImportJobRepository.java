@@ -0,0 +1,37 @@
+package fpt.sep.apjf.repository;
+
+import fpt.sep.apjf.entity.UserImportJob;
+import fpt.sep.apjf.entity.UserImportJob.ImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface UserImportJobRepository extends JpaRepository<UserImportJob, UUID> {
+
+    /**
+     * Nhận job để chạy tiếp: chỉ job đã lỗi, hoặc job RUNNING không cập nhật từ {@code staleBefore}
+     * (instance chạy nó đã chết). Trả về 0 nếu job đang chạy ở nơi khác hoặc đã xong.
+     */
+    @Modifying
+    @Query("update UserImportJob j set j.status = fpt.sep.apjf.entity.UserImportJob.ImportStatus.RUNNING, "
+            + "j.lastError = null, j.updatedAt = :now where j.id = :id "
+            + "and (j.status = fpt.sep.apjf.entity.UserImportJob.ImportStatus.FAILED "
+            + "or (j.status = fpt.sep.apjf.entity.UserImportJob.ImportStatus.RUNNING and j.updatedAt < :staleBefore))")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("update UserImportJob j set j.processedRows = j.processedRows + :processed, "
+            + "j.importedRows = j.importedRows + :imported, j.skippedRows = j.skippedRows + :skipped, "
+            + "j.failedRows = j.failedRows + :failed, j.updatedAt = :now where j.id = :id")
+    int advance(@Param("id") UUID id, @Param("processed") long processed, @Param("imported") long imported,
+                @Param("skipped") long skipped, @Param("failed") long failed, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update UserImportJob j set j.status = :status, j.lastError = :error, j.updatedAt = :now where j.id = :id")
+    int finish(@Param("id") UUID id, @Param("status") ImportStatus status, @Param("error") String error,
+               @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,9 @@
+package fpt.sep.apjf.repository;
+
+/**
+ * Một dòng của login projection: các cột cần để đăng nhập, mỗi role một dòng
+ * ({@code authority} null nếu user chưa có role).
+ */
+public record UserLoginRow(Long id, String username, String email, String password, boolean enabled,
+                           String authority) {
+}
@@ -1,26 +1,100 @@
 package fpt.sep.apjf.repository;
 
 import fpt.sep.apjf.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    boolean existsByEmail(String email);
+    /**
+     * Login projection: chỉ id, username, email, hash mật khẩu, enabled và tên role, một query,
+     * không hydrate entity {@link User} (address, phone, avatar...) và không qua persistence context.
+     */
+    String LOGIN_ROWS_SELECT = "select new fpt.sep.apjf.repository.UserLoginRow("
+            + "u.id, u.username, u.email, u.password, u.enabled, a.authority) "
+            + "from User u left join u.authorities a ";
+
+    @Query(LOGIN_ROWS_SELECT + "where lower(u.email) = lower(:email)")
+    List<UserLoginRow> findLoginRowsByEmail(@Param("email") String email);
+
+    @Query(LOGIN_ROWS_SELECT + "where u.username = :username")
+    List<UserLoginRow> findLoginRowsByUsername(@Param("username") String username);
+
+    @Query(LOGIN_ROWS_SELECT + "where u.id = :id")
+    List<UserLoginRow> findLoginRowsById(@Param("id") Long id);
+
+    // Email so sánh không phân biệt hoa thường, dùng unique index uq_users_email_lower
+    @Query("select count(u) > 0 from User u where lower(u.email) = lower(:email)")
+    boolean existsByEmail(@Param("email") String email);
 
     boolean existsByUsername(String username);
 
     Optional<User> findByUsername(String username);
 
-    Optional<User> findByEmail(String email);
+    @Query("select u from User u where lower(u.email) = lower(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    /**
+     * Tìm kiếm cho admin theo keyset (seek): {@code id > :after order by id} với {@link Limit}, mỗi trang
+     * chỉ đọc đúng số dòng cần, không phụ thuộc vị trí trang. Role của trang được nạp riêng bằng
+     * {@link #findRolesByUserIdIn}.
+     */
+    String SUMMARY_SELECT = "select new fpt.sep.apjf.repository.UserSummaryRow("
+            + "u.id, u.username, u.email, u.enabled, u.emailVerified) from User u ";
+
+    // LIKE '%...%' trên lower(email) dùng trigram index idx_users_email_trgm
+    String EMAIL_CONTAINS = "lower(u.email) like lower(concat('%', :#{escape(#email)}, '%')) escape :#{escapeCharacter()} ";
+
+    @Query(SUMMARY_SELECT + "where u.id > :after order by u.id")
+    List<UserSummaryRow> findSummariesAfter(@Param("after") long after, Limit limit);
+
+    @Query(SUMMARY_SELECT + "where " + EMAIL_CONTAINS + "and u.id > :after order by u.id")
+    List<UserSummaryRow> findSummariesByEmailAfter(@Param("email") String email, @Param("after") long after,
+                                                   Limit limit);
+
+    @Query(SUMMARY_SELECT + "join u.authorities a where a.authority = :role and u.id > :after order by u.id")
+    List<UserSummaryRow> findSummariesByRoleAfter(@Param("role") String role, @Param("after") long after,
+                                                  Limit limit);
+
+    @Query(SUMMARY_SELECT + "join u.authorities a where a.authority = :role and " + EMAIL_CONTAINS
+            + "and u.id > :after order by u.id")
+    List<UserSummaryRow> findSummariesByRoleAndEmailAfter(@Param("role") String role, @Param("email") String email,
+                                                          @Param("after") long after, Limit limit);
+
+    @Query("select new fpt.sep.apjf.repository.UserRoleRow(u.id, a.authority) "
+            + "from User u join u.authorities a where u.id in :ids")
+    List<UserRoleRow> findRolesByUserIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * User đã dùng một trong các email (so sánh chữ thường, truyền vào dạng chữ thường) hoặc username.
+     */
+    @Query("select new fpt.sep.apjf.repository.UserIdentityRow(u.email, u.username) from User u "
+            + "where lower(u.email) in :emails or u.username in :usernames")
+    List<UserIdentityRow> findIdentitiesByEmailsOrUsernames(@Param("emails") Collection<String> emails,
+                                                            @Param("usernames") Collection<String> usernames);
 
-    List<User> findByAuthorities_Authority(String role);
+    @Modifying
+    @Query("update User u set u.enabled = true where u.id = :id")
+    int enableById(@Param("id") Long id);
 
-    List<User> findByEmailContaining(String email);
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 
-    List<User> findByAuthorities_AuthorityAndEmailContaining(String role, String email);
+    /**
+     * Đổi mật khẩu chỉ khi hash hiện tại vẫn là {@code expected}; trả về 0 nếu mật khẩu đã đổi trước đó.
+     */
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id and u.password = :expected")
+    int updatePasswordIfCurrent(@Param("id") Long id, @Param("expected") String expected,
+                                @Param("password") String password);
 }
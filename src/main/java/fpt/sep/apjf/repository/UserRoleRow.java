@@ -0,0 +1,7 @@
+package fpt.sep.apjf.repository;
+
+/**
+ * Một cặp (user, role) khi nạp role cho cả trang kết quả bằng một query.
+ */
+public record UserRoleRow(Long userId, String authority) {
+}
@@ -0,0 +1,7 @@
+package fpt.sep.apjf.repository;
+
+/**
+ * Projection cho trang tìm kiếm user của admin: chỉ các cột hiển thị, không có mật khẩu.
+ */
+public record UserSummaryRow(Long id, String username, String email, boolean enabled, boolean emailVerified) {
+}
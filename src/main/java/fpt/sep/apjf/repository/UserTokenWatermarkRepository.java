@@ -0,0 +1,20 @@
+package fpt.sep.apjf.repository;
+
+import fpt.sep.apjf.entity.UserTokenWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UserTokenWatermarkRepository extends JpaRepository<UserTokenWatermark, Long> {
+
+    @Query("select w from UserTokenWatermark w where w.updatedAt > :since and w.expiresAt > :now")
+    List<UserTokenWatermark> findUpdatedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from UserTokenWatermark w where w.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,14 +1,33 @@
 package fpt.sep.apjf.repository;
 
-import fpt.sep.apjf.entity.User;
 import fpt.sep.apjf.entity.VerifyToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 public interface VerifyTokenRepository extends JpaRepository<VerifyToken, Long> {
 
-    Optional<VerifyToken> findTopByUserAndTypeOrderByRequestedTimeDesc(User user, VerifyToken.VerifyTokenType type);
+    Optional<VerifyToken> findTopByUserIdAndTypeOrderByRequestedTimeDesc(Long userId, VerifyToken.VerifyTokenType type);
 
-    void deleteAllByUserAndType(User user, VerifyToken.VerifyTokenType type);
+    @Modifying
+    @Query("delete from VerifyToken t where t.user.id = :userId and t.type = :type")
+    int deleteByUserIdAndType(@Param("userId") Long userId, @Param("type") VerifyToken.VerifyTokenType type);
+
+    @Modifying
+    @Query("delete from VerifyToken t where t.type = :type and t.user.id in :userIds")
+    int deleteByTypeAndUserIdIn(@Param("type") VerifyToken.VerifyTokenType type,
+                                @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Xóa tối đa {@code limit} token đã hết hạn; gọi lặp lại để dọn bảng mà không giữ lock lâu.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM verify_token WHERE id IN "
+            + "(SELECT id FROM verify_token WHERE expiration_time < :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
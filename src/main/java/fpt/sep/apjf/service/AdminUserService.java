@@ -0,0 +1,19 @@
+package fpt.sep.apjf.service;
+
+import fpt.sep.apjf.dto.UserPageDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface AdminUserService {
+
+    /**
+     * Một trang user có id lớn hơn {@code after}, lọc theo role và/hoặc một phần email (null = bỏ qua).
+     */
+    UserPageDTO search(String role, String email, long after, int size);
+
+    /**
+     * Ghi toàn bộ kết quả dạng NDJSON (mỗi dòng một {@code UserSummaryDTO}), đọc theo từng lô keyset.
+     */
+    void export(String role, String email, OutputStream out) throws IOException;
+}
@@ -0,0 +1,21 @@
+package fpt.sep.apjf.service;
+
+import fpt.sep.apjf.entity.VerifyToken;
+
+import java.util.List;
+
+public interface EmailOutboxService {
+
+    /**
+     * Ghi email vào outbox trong transaction hiện tại; email chỉ được gửi sau khi transaction commit.
+     */
+    void enqueue(String email, String otp, VerifyToken.VerifyTokenType type);
+
+    /**
+     * Như {@link #enqueue} cho nhiều người nhận, ghi bằng một batch JDBC.
+     */
+    void enqueueAll(List<Recipient> recipients, VerifyToken.VerifyTokenType type);
+
+    record Recipient(String email, String otp) {
+    }
+}
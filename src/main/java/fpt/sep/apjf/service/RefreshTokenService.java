@@ -0,0 +1,27 @@
+package fpt.sep.apjf.service;
+
+import fpt.sep.apjf.dto.LoginResponse;
+import fpt.sep.apjf.service.impl.UserCache.CachedUser;
+
+public interface RefreshTokenService {
+
+    /**
+     * Mở một phiên mới cho user: access token mang {@code sid} của phiên và refresh token đầu tiên.
+     */
+    LoginResponse openSession(CachedUser user);
+
+    /**
+     * Đổi refresh token lấy access token mới và refresh token kế tiếp (xoay vòng), không kiểm tra mật khẩu.
+     */
+    LoginResponse refresh(String refreshToken);
+
+    /**
+     * Đăng xuất phiên của access token: thu hồi refresh token của phiên và mọi access token mang cùng {@code sid}.
+     */
+    void logout(String accessToken);
+
+    /**
+     * Thu hồi mọi phiên và mọi access token đã phát hành của user (ví dụ sau khi đổi mật khẩu).
+     */
+    void revokeAll(Long userId);
+}
@@ -0,0 +1,13 @@
+package fpt.sep.apjf.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public interface TokenIntrospectionService {
+
+    /**
+     * Xác thực từng token và ghi kết quả ra {@code out} dạng NDJSON, mỗi dòng một token, đúng thứ tự đầu vào.
+     */
+    void introspect(List<String> tokens, OutputStream out) throws IOException;
+}
@@ -0,0 +1,19 @@
+package fpt.sep.apjf.service;
+
+import fpt.sep.apjf.dto.UserImportJobDTO;
+import fpt.sep.apjf.service.impl.UserImportReader.Format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+public interface UserImportService {
+
+    /**
+     * Import user từ luồng CSV/NDJSON theo từng lô. {@code jobId} null thì tạo job mới; ngược lại chạy tiếp
+     * job đã lỗi từ checkpoint, với cùng nội dung đầu vào.
+     */
+    UserImportJobDTO importUsers(InputStream in, Format format, UUID jobId) throws IOException;
+
+    UserImportJobDTO getJob(UUID jobId);
+}
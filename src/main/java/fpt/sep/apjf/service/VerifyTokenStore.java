@@ -0,0 +1,36 @@
+package fpt.sep.apjf.service;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Nơi lưu OTP đang hiệu lực, mỗi (user, loại token) tối đa một OTP.
+ * <p>
+ * Cài đặt chọn bằng {@code spring.app.otpStore}: {@code jpa} (bảng {@code verify_token}),
+ * {@code memory} (chỉ RAM, một instance) hoặc {@code write-behind} (đọc từ RAM, ghi xuống DB theo lô).
+ * Khi có transaction, thay đổi chỉ có hiệu lực sau khi commit.
+ */
+public interface VerifyTokenStore {
+
+    /**
+     * Lưu OTP mới, thay thế OTP cùng loại trước đó của user.
+     */
+    void replace(StoredToken token);
+
+    Optional<StoredToken> find(Long userId, VerifyTokenType type);
+
+    void remove(Long userId, VerifyTokenType type);
+
+    record StoredToken(Long userId,
+                       VerifyTokenType type,
+                       byte[] tokenHash,
+                       LocalDateTime requestedTime,
+                       LocalDateTime expirationTime) {
+
+        public boolean isExpired(LocalDateTime now) {
+            return expirationTime.isBefore(now);
+        }
+    }
+}
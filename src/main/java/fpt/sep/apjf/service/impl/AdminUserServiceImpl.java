@@ -0,0 +1,109 @@
+package fpt.sep.apjf.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.dto.UserPageDTO;
+import fpt.sep.apjf.dto.UserSummaryDTO;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.repository.UserRoleRow;
+import fpt.sep.apjf.repository.UserSummaryRow;
+import fpt.sep.apjf.service.AdminUserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin user search on keyset pages of {@link UserSummaryRow} projections: no entities, no eager
+ * authorities, and every page costs one bounded query plus one query for the page's roles. The export
+ * walks the same pages, so it never holds more than one batch in memory or a cursor open across batches.
+ */
+@Service
+public class AdminUserServiceImpl implements AdminUserService {
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+    private final int exportBatchSize;
+
+    public AdminUserServiceImpl(UserRepository userRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${spring.app.adminPageMaxSize:200}") int maxPageSize,
+                                @Value("${spring.app.adminExportBatchSize:1000}") int exportBatchSize) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+        this.exportBatchSize = exportBatchSize;
+    }
+
+    @Override
+    public UserPageDTO search(String role, String email, long after, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxPageSize);
+        }
+        // Lấy dư một dòng để biết còn trang sau mà không cần query count
+        List<UserSummaryDTO> items = page(blankToNull(role), blankToNull(email), after, size + 1);
+        if (items.size() <= size) {
+            return new UserPageDTO(items, null);
+        }
+        List<UserSummaryDTO> page = items.subList(0, size);
+        return new UserPageDTO(List.copyOf(page), page.get(size - 1).id());
+    }
+
+    @Override
+    public void export(String role, String email, OutputStream out) throws IOException {
+        String roleFilter = blankToNull(role);
+        String emailFilter = blankToNull(email);
+        long after = 0;
+        List<UserSummaryDTO> batch;
+        do {
+            batch = page(roleFilter, emailFilter, after, exportBatchSize);
+            for (UserSummaryDTO user : batch) {
+                out.write(objectMapper.writeValueAsBytes(user));
+                out.write('\n');
+            }
+            out.flush();
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+            }
+        } while (batch.size() == exportBatchSize);
+    }
+
+    private List<UserSummaryDTO> page(String role, String email, long after, int size) {
+        Limit limit = Limit.of(size);
+        List<UserSummaryRow> rows;
+        if (role == null) {
+            rows = email == null
+                    ? userRepository.findSummariesAfter(after, limit)
+                    : userRepository.findSummariesByEmailAfter(email, after, limit);
+        } else {
+            rows = email == null
+                    ? userRepository.findSummariesByRoleAfter(role, after, limit)
+                    : userRepository.findSummariesByRoleAndEmailAfter(role, email, after, limit);
+        }
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<String>> roles = new HashMap<>();
+        for (UserRoleRow row : userRepository.findRolesByUserIdIn(rows.stream().map(UserSummaryRow::id).toList())) {
+            roles.computeIfAbsent(row.userId(), id -> new ArrayList<>()).add(row.authority());
+        }
+        List<UserSummaryDTO> users = new ArrayList<>(rows.size());
+        for (UserSummaryRow row : rows) {
+            List<String> userRoles = roles.getOrDefault(row.id(), List.of()).stream().sorted().toList();
+            users.add(new UserSummaryDTO(row.id(), row.username(), row.email(), row.enabled(),
+                    row.emailVerified(), userRoles));
+        }
+        return users;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,203 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.entity.EmailOutbox;
+import fpt.sep.apjf.entity.EmailOutbox.OutboxStatus;
+import fpt.sep.apjf.entity.VerifyToken;
+import fpt.sep.apjf.repository.EmailOutboxRepository;
+import fpt.sep.apjf.utils.EmailUtils;
+import fpt.sep.apjf.utils.SmtpConnectionPool;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Drains {@code email_outbox} in three steps so no row lock or DB connection is held while talking to
+ * SMTP: claim a batch of due rows (row-locked, SKIP LOCKED) and push their {@code next_attempt_at} out by
+ * {@code spring.app.outboxClaimTimeout}, commit; send the batch over one pooled SMTP connection
+ * ({@link SmtpConnectionPool}); record the outcomes in a second short transaction. A node that dies
+ * mid-send leaves its rows to be picked up again once the claim times out.
+ * <p>
+ * Failures are retried with exponential backoff up to {@code spring.app.outboxMaxAttempts}, but never past
+ * the lifetime of the code ({@link VerifyToken#OTP_TTL} from {@code created_at}): expired rows are marked
+ * {@link OutboxStatus#FAILED} with the OTP cleared instead of being sent. Delivery is at-least-once;
+ * the idempotency key travels as a header so duplicates can be recognised downstream.
+ */
+@Component
+@Slf4j
+public class EmailOutboxRelay {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailUtils emailUtils;
+    private final SmtpConnectionPool smtpConnectionPool;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration retention;
+    private final Duration claimTimeout;
+
+    public EmailOutboxRelay(EmailOutboxRepository emailOutboxRepository,
+                            EmailUtils emailUtils,
+                            SmtpConnectionPool smtpConnectionPool,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${spring.app.outboxBatchSize:50}") int batchSize,
+                            @Value("${spring.app.outboxMaxAttempts:8}") int maxAttempts,
+                            @Value("${spring.app.outboxBaseBackoff:PT30S}") Duration baseBackoff,
+                            @Value("${spring.app.outboxRetention:P7D}") Duration retention,
+                            @Value("${spring.app.outboxClaimTimeout:PT2M}") Duration claimTimeout) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailUtils = emailUtils;
+        this.smtpConnectionPool = smtpConnectionPool;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.retention = retention;
+        this.claimTimeout = claimTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.outboxPollMs:1000}")
+    public void relay() {
+        int processed;
+        do {
+            List<EmailOutbox> batch = transactionTemplate.execute(status -> claimBatch());
+            processed = batch == null ? 0 : batch.size();
+            if (processed > 0) {
+                sendClaimed(batch);
+            }
+        } while (processed == batchSize);
+    }
+
+    /**
+     * Khóa một lô đến hạn và đánh dấu đã nhận (lùi {@code next_attempt_at}) rồi commit ngay; email đã quá
+     * hạn OTP thì bỏ luôn ở bước này (không còn PENDING, {@link #sendClaimed} bỏ qua).
+     */
+    private List<EmailOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = emailOutboxRepository.findDueForUpdate(
+                OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        for (EmailOutbox message : batch) {
+            if (isExpired(message, now)) {
+                giveUp(message, "OTP expired before it could be sent");
+            } else {
+                message.setNextAttemptAt(now.plus(claimTimeout));
+            }
+        }
+        emailOutboxRepository.saveAll(batch);
+        return batch;
+    }
+
+    /**
+     * Gửi ngoài transaction (không giữ khóa dòng hay kết nối DB trong lúc chờ SMTP), sau đó ghi kết quả.
+     */
+    private void sendClaimed(List<EmailOutbox> claimed) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> ready = new ArrayList<>(claimed.size());
+        List<EmailOutbox> done = new ArrayList<>(claimed.size());
+        List<MimeMessage> messages = new ArrayList<>(claimed.size());
+        for (EmailOutbox message : claimed) {
+            if (message.getStatus() != OutboxStatus.PENDING) {
+                continue;
+            }
+            try {
+                messages.add(emailUtils.buildEmail(message.getRecipient(), message.getOtp(), message.getType(),
+                        message.getLocale(), message.getIdempotencyKey()));
+                ready.add(message);
+            } catch (Exception e) {
+                markFailedAttempt(message, e, now);
+                done.add(message);
+            }
+        }
+
+        // Cả lô đi qua một kết nối SMTP đã mở sẵn
+        List<Exception> results = sendBatch(messages);
+        for (int i = 0; i < ready.size(); i++) {
+            EmailOutbox message = ready.get(i);
+            Exception error = results.get(i);
+            if (error == null) {
+                message.setStatus(OutboxStatus.SENT);
+                message.setSentAt(LocalDateTime.now());
+                message.setOtp(null);
+                message.setLastError(null);
+            } else {
+                markFailedAttempt(message, error, now);
+            }
+            done.add(message);
+        }
+        if (!done.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(done));
+        }
+    }
+
+    private List<Exception> sendBatch(List<MimeMessage> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return smtpConnectionPool.sendBatch(messages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.nCopies(messages.size(), e);
+        }
+    }
+
+    private void markFailedAttempt(EmailOutbox message, Exception e, LocalDateTime now) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(e.getMessage()));
+        Duration backoff = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        LocalDateTime nextAttempt = now.plus(backoff);
+        // Không thử lại khi OTP đã hết hạn vào lúc gửi lần sau
+        if (attempts >= maxAttempts || isExpired(message, nextAttempt)) {
+            giveUp(message, e.getMessage());
+            return;
+        }
+        message.setNextAttemptAt(nextAttempt);
+        log.warn("Sending {} email {} failed (attempt {}), retry in {}: {}",
+                message.getType(), message.getIdempotencyKey(), attempts, backoff, e.getMessage());
+    }
+
+    private void giveUp(EmailOutbox message, String reason) {
+        message.setStatus(OutboxStatus.FAILED);
+        message.setOtp(null);
+        if (message.getLastError() == null) {
+            message.setLastError(truncate(reason));
+        }
+        log.error("Giving up on {} email {} after {} attempts: {}",
+                message.getType(), message.getIdempotencyKey(), message.getAttempts(), reason);
+    }
+
+    private static boolean isExpired(EmailOutbox message, LocalDateTime at) {
+        return !message.getCreatedAt().plus(VerifyToken.OTP_TTL).isAfter(at);
+    }
+
+    @Scheduled(cron = "${spring.app.outboxPurgeCron:0 0 * * * *}")
+    public void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteByStatusAndCreatedAtBefore(OutboxStatus.SENT, before));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} sent outbox emails", deleted);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
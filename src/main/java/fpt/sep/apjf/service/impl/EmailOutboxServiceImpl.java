@@ -0,0 +1,64 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.entity.EmailOutbox;
+import fpt.sep.apjf.entity.EmailOutbox.OutboxStatus;
+import fpt.sep.apjf.entity.VerifyToken;
+import fpt.sep.apjf.repository.EmailOutboxRepository;
+import fpt.sep.apjf.service.EmailOutboxService;
+import fpt.sep.apjf.utils.EmailTemplateEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailTemplateEngine emailTemplateEngine;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String email, String otp, VerifyToken.VerifyTokenType type) {
+        LocalDateTime now = LocalDateTime.now();
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .idempotencyKey(UUID.randomUUID().toString())
+                .recipient(email)
+                .type(type)
+                .locale(emailTemplateEngine.resolveLanguage(LocaleContextHolder.getLocale()))
+                .otp(otp)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<Recipient> recipients, VerifyToken.VerifyTokenType type) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String locale = emailTemplateEngine.resolveLanguage(LocaleContextHolder.getLocale());
+        List<Object[]> rows = new ArrayList<>(recipients.size());
+        for (Recipient recipient : recipients) {
+            rows.add(new Object[]{UUID.randomUUID().toString(), recipient.email(), type.name(), recipient.otp(),
+                    locale, OutboxStatus.PENDING.name(), 0, now, now});
+        }
+        // id IDENTITY không cho Hibernate gộp batch: ghi thẳng bằng JDBC
+        jdbcTemplate.batchUpdate("INSERT INTO email_outbox (idempotency_key, recipient, type, otp, locale, status, "
+                + "attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+}
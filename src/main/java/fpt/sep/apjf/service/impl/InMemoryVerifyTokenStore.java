@@ -0,0 +1,97 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import fpt.sep.apjf.utils.HashedTimingWheel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OTP chỉ nằm trong RAM; mất khi restart và không chia sẻ giữa các instance.
+ * <p>
+ * Hết hạn được xử lý bởi {@link HashedTimingWheel}: mỗi token đặt một hẹn giờ O(1), không có quét toàn bộ map.
+ * Vì wheel làm tròn theo tick, {@link #find} vẫn kiểm tra {@code expirationTime}.
+ */
+public class InMemoryVerifyTokenStore implements VerifyTokenStore, AutoCloseable {
+
+    private final Map<Key, Entry> tokens = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<Entry> expiry;
+
+    public InMemoryVerifyTokenStore(MeterRegistry meterRegistry, Duration tick) {
+        this.expiry = new HashedTimingWheel<>("otp-expiry", tick, 512, entry -> tokens.remove(entry.key, entry));
+        Gauge.builder("otp.store.size", tokens, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public void replace(StoredToken token) {
+        TransactionHooks.afterCommit(() -> put(token));
+    }
+
+    @Override
+    public Optional<StoredToken> find(Long userId, VerifyTokenType type) {
+        Key key = new Key(userId, type);
+        Entry entry = tokens.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.token.isExpired(LocalDateTime.now())) {
+            evict(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.token);
+    }
+
+    @Override
+    public void remove(Long userId, VerifyTokenType type) {
+        TransactionHooks.afterCommit(() -> delete(new Key(userId, type)));
+    }
+
+    void put(StoredToken token) {
+        Key key = new Key(token.userId(), token.type());
+        Entry entry = new Entry(key, token);
+        entry.timeout = expiry.schedule(entry, Duration.between(LocalDateTime.now(), token.expirationTime()));
+        Entry previous = tokens.put(key, entry);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    void delete(Key key) {
+        Entry previous = tokens.remove(key);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    private void evict(Key key, Entry entry) {
+        if (tokens.remove(key, entry)) {
+            entry.timeout.cancel();
+        }
+    }
+
+    @Override
+    public void close() {
+        expiry.close();
+    }
+
+    record Key(Long userId, VerifyTokenType type) {
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+        private final StoredToken token;
+        private volatile HashedTimingWheel.Timeout<Entry> timeout;
+
+        private Entry(Key key, StoredToken token) {
+            this.key = key;
+            this.token = token;
+        }
+    }
+}
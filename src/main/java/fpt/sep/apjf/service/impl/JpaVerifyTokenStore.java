@@ -0,0 +1,70 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.entity.VerifyToken;
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.repository.VerifyTokenRepository;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * OTP trong bảng {@code verify_token}, ghi trong transaction của caller.
+ */
+@RequiredArgsConstructor
+public class JpaVerifyTokenStore implements VerifyTokenStore {
+
+    private final VerifyTokenRepository verifyTokenRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    public void replace(StoredToken token) {
+        verifyTokenRepository.deleteByUserIdAndType(token.userId(), token.type());
+        verifyTokenRepository.save(toEntity(token));
+    }
+
+    @Override
+    public Optional<StoredToken> find(Long userId, VerifyTokenType type) {
+        return verifyTokenRepository.findTopByUserIdAndTypeOrderByRequestedTimeDesc(userId, type)
+                .map(JpaVerifyTokenStore::toStored);
+    }
+
+    @Override
+    public void remove(Long userId, VerifyTokenType type) {
+        verifyTokenRepository.deleteByUserIdAndType(userId, type);
+    }
+
+    /**
+     * Ghi một lô thay đổi: mỗi loại token một câu DELETE, sau đó INSERT các token mới.
+     */
+    void writeBatch(Collection<InMemoryVerifyTokenStore.Key> touched, List<StoredToken> tokens) {
+        Map<VerifyTokenType, List<Long>> userIdsByType = touched.stream().collect(Collectors.groupingBy(
+                InMemoryVerifyTokenStore.Key::type,
+                () -> new EnumMap<>(VerifyTokenType.class),
+                Collectors.mapping(InMemoryVerifyTokenStore.Key::userId, Collectors.toList())));
+        userIdsByType.forEach(verifyTokenRepository::deleteByTypeAndUserIdIn);
+        verifyTokenRepository.saveAll(tokens.stream().map(this::toEntity).toList());
+    }
+
+    private VerifyToken toEntity(StoredToken token) {
+        return VerifyToken.builder()
+                .user(userRepository.getReferenceById(token.userId()))
+                .tokenHash(token.tokenHash())
+                .type(token.type())
+                .requestedTime(token.requestedTime())
+                .expirationTime(token.expirationTime())
+                .build();
+    }
+
+    private static StoredToken toStored(VerifyToken token) {
+        // getId() trên proxy lazy không kích hoạt query
+        return new StoredToken(token.getUser().getId(), token.getType(), token.getTokenHash(),
+                token.getRequestedTime(), token.getExpirationTime());
+    }
+}
@@ -0,0 +1,101 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.entity.RefreshTokenRevocation;
+import fpt.sep.apjf.repository.RefreshTokenRevocationRepository;
+import fpt.sep.apjf.utils.TimePartitionedBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Revoked refresh-token families, kept in memory as a {@link TimePartitionedBloomFilter} and persisted in
+ * {@code refresh_token_revocation}. A negative filter answer is final; a positive one is confirmed with a
+ * primary-key lookup, so false positives cost one query and never a wrong rejection. Entries drop out of
+ * the filter when the family would have expired anyway. Revocations made by other instances are pulled
+ * every {@code spring.app.refreshRevocationPollMs}.
+ */
+@Component
+@Slf4j
+public class RefreshTokenRevocations {
+
+    // Chồng lấn khi poll để không sót bản ghi commit muộn hoặc lệch giờ giữa các instance
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final RefreshTokenRevocationRepository revocationRepository;
+    private final TimePartitionedBloomFilter filter;
+    private final Clock clock = Clock.systemDefaultZone();
+    private final Counter falsePositives;
+    private volatile LocalDateTime lastPoll = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public RefreshTokenRevocations(RefreshTokenRevocationRepository revocationRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${spring.app.refreshTokenTtl:P14D}") Duration refreshTokenTtl,
+                                   @Value("${spring.app.refreshRevocationCapacity:20000}") int expectedPerDay) {
+        this.revocationRepository = revocationRepository;
+        this.filter = new TimePartitionedBloomFilter(Duration.ofDays(1), refreshTokenTtl, expectedPerDay, 0.01,
+                Clock.systemUTC());
+        this.falsePositives = Counter.builder("refresh.revocation.false_positive").register(meterRegistry);
+    }
+
+    public boolean isRevoked(UUID familyId) {
+        if (!filter.mightContain(familyId)) {
+            return false;
+        }
+        boolean revoked = revocationRepository.existsById(familyId);
+        if (!revoked) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Ghi thu hồi trong transaction của caller; bộ lọc cục bộ được cập nhật ngay.
+     */
+    public void revoke(UUID familyId, Long userId, LocalDateTime expiresAt) {
+        revocationRepository.save(RefreshTokenRevocation.builder()
+                .familyId(familyId)
+                .userId(userId)
+                .revokedAt(LocalDateTime.now(clock))
+                .expiresAt(expiresAt)
+                .build());
+        remember(familyId, expiresAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${spring.app.refreshRevocationPollMs:10000}",
+            initialDelayString = "${spring.app.refreshRevocationPollMs:10000}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime since = lastPoll.minus(POLL_OVERLAP);
+        int loaded = 0;
+        for (RefreshTokenRevocation revocation : revocationRepository.findRevokedSince(since, now)) {
+            remember(revocation.getFamilyId(), revocation.getExpiresAt());
+            loaded++;
+        }
+        lastPoll = now;
+        if (loaded > 0) {
+            log.debug("Loaded {} refresh token revocations", loaded);
+        }
+    }
+
+    private void remember(UUID familyId, LocalDateTime expiresAt) {
+        try {
+            filter.put(familyId, expiresAt.atZone(ZoneId.systemDefault()).toInstant());
+        } catch (IllegalArgumentException e) {
+            // Hạn dài hơn refreshTokenTtl hiện tại (ví dụ cấu hình vừa giảm): giữ tới giới hạn của bộ lọc
+            filter.put(familyId, clock.instant().plus(Duration.ofDays(1)));
+            log.warn("Revocation of {} outlives spring.app.refreshTokenTtl, kept for one day only", familyId);
+        }
+    }
+}
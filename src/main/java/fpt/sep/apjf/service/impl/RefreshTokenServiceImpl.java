@@ -0,0 +1,267 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.dto.LoginResponse;
+import fpt.sep.apjf.entity.RefreshToken;
+import fpt.sep.apjf.repository.RefreshTokenRepository;
+import fpt.sep.apjf.repository.RefreshTokenRevocationRepository;
+import fpt.sep.apjf.service.RefreshTokenService;
+import fpt.sep.apjf.service.impl.UserCache.CachedUser;
+import fpt.sep.apjf.utils.AccessTokenDenylist;
+import fpt.sep.apjf.utils.HmacSha256;
+import fpt.sep.apjf.utils.JwtClaimsView;
+import fpt.sep.apjf.utils.JwtUtils;
+import fpt.sep.apjf.utils.VerifiedTokenCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opaque, rotating refresh tokens.
+ * <p>
+ * A token is {@code base64url(familyId || generation || secret)} with
+ * {@code secret = HMAC-SHA256(spring.app.refreshTokenKey, familyId || generation)}; {@code refresh_token}
+ * keeps one row per family with the current generation and the SHA-256 of its secret. Each refresh is a
+ * primary-key lookup plus a conditional update that moves the family to the next generation, so the
+ * password hash is never touched. Presenting an older generation whose secret verifies (or losing the
+ * update race) means the token was copied: the whole family is revoked in {@link RefreshTokenRevocations}
+ * and deleted. An older generation with a wrong secret is only rejected, since the family id is also the
+ * {@code sid} of every access token. Expiry slides by {@code spring.app.refreshTokenTtl} on every rotation.
+ * Meter: {@code auth.refresh} (tag {@code result}).
+ * <p>
+ * Access tokens carry the family id as {@code sid}; logout and revocation also put the session (or the
+ * user's issue-time watermark) on {@link AccessTokenDenylist}, so outstanding access tokens stop working
+ * immediately instead of at {@code exp}.
+ */
+@Service
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final int SECRET_LENGTH = 32;
+    private static final int TOKEN_LENGTH = 16 + Integer.BYTES + SECRET_LENGTH;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenRevocationRepository revocationRepository;
+    private final RefreshTokenRevocations revocations;
+    private final AccessTokenDenylist accessTokenDenylist;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final UserCache userCache;
+    private final JwtUtils jwtUtils;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final HmacSha256 hmac;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   RefreshTokenRevocationRepository revocationRepository,
+                                   RefreshTokenRevocations revocations,
+                                   AccessTokenDenylist accessTokenDenylist,
+                                   VerifiedTokenCache verifiedTokenCache,
+                                   UserCache userCache,
+                                   JwtUtils jwtUtils,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${spring.app.refreshTokenTtl:P14D}") Duration ttl,
+                                   @Value("${spring.app.refreshTokenKey:}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("spring.app.refreshTokenKey must be configured");
+        }
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revocationRepository = revocationRepository;
+        this.revocations = revocations;
+        this.accessTokenDenylist = accessTokenDenylist;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.userCache = userCache;
+        this.jwtUtils = jwtUtils;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.hmac = new HmacSha256(Base64.getDecoder().decode(secret));
+    }
+
+    @Override
+    @Transactional
+    public LoginResponse openSession(CachedUser user) {
+        LocalDateTime now = LocalDateTime.now();
+        UUID familyId = UUID.randomUUID();
+        byte[] secret = secretFor(familyId, 0);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .familyId(familyId)
+                .userId(user.id())
+                .generation(0)
+                .tokenHash(sha256(secret))
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+        return new LoginResponse(user.username(), user.roles(), jwtUtils.generateToken(user, user.id(), familyId),
+                encode(familyId, 0, secret));
+    }
+
+    @Override
+    @Transactional(dontRollbackOn = BadCredentialsException.class)
+    public LoginResponse refresh(String refreshToken) {
+        ParsedToken token = parse(refreshToken).orElseThrow(() -> rejected("invalid"));
+        if (revocations.isRevoked(token.familyId())) {
+            throw rejected("revoked");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken family = refreshTokenRepository.findById(token.familyId())
+                .filter(row -> row.getExpiresAt().isAfter(now))
+                .orElseThrow(() -> rejected("invalid"));
+
+        if (token.generation() < family.getGeneration()) {
+            // Chỉ là dùng lại khi secret đúng của generation đó: biết sid thôi thì không thu hồi được phiên
+            if (!MessageDigest.isEqual(token.secret(), secretFor(family.getFamilyId(), token.generation()))) {
+                throw rejected("invalid");
+            }
+            revokeFamily(family, "reused refresh token generation " + token.generation());
+            throw rejected("reused");
+        }
+        if (token.generation() != family.getGeneration()
+                || !MessageDigest.isEqual(sha256(token.secret()), family.getTokenHash())) {
+            throw rejected("invalid");
+        }
+        CachedUser user = userCache.findById(family.getUserId())
+                .filter(CachedUser::enabled)
+                .orElseThrow(() -> rejected("invalid"));
+
+        int next = family.getGeneration() + 1;
+        byte[] secret = secretFor(family.getFamilyId(), next);
+        if (refreshTokenRepository.rotate(family.getFamilyId(), family.getGeneration(), sha256(secret), now,
+                now.plus(ttl)) == 0) {
+            // Request khác vừa dùng cùng token: một trong hai là bản sao
+            revokeFamily(family, "concurrent use of refresh token generation " + token.generation());
+            throw rejected("reused");
+        }
+        count("ok");
+        return new LoginResponse(user.username(), user.roles(),
+                jwtUtils.generateToken(user, user.id(), family.getFamilyId()),
+                encode(family.getFamilyId(), next, secret));
+    }
+
+    @Override
+    @Transactional
+    public void logout(String accessToken) {
+        JwtClaimsView claims = (accessToken == null ? Optional.<VerifiedTokenCache.CachedAuthentication>empty()
+                : verifiedTokenCache.get(accessToken))
+                .map(VerifiedTokenCache.CachedAuthentication::claims)
+                .orElseThrow(() -> new BadCredentialsException("Invalid access token"));
+        if (claims.sessionId() != null) {
+            refreshTokenRepository.findById(claims.sessionId()).ifPresent(this::revoke);
+            accessTokenDenylist.denySession(claims.sessionId(), claims.userId());
+        } else if (claims.tokenId() != null) {
+            // Token không gắn phiên: chỉ thu hồi chính token này tới exp
+            accessTokenDenylist.deny(claims.tokenId(), claims.userId(), claims.expiresAt());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.findByUserId(userId).forEach(this::revoke);
+        accessTokenDenylist.revokeAllIssuedBefore(userId, Instant.now());
+    }
+
+    @Scheduled(cron = "${spring.app.refreshTokenPurgeCron:0 30 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(status ->
+                refreshTokenRepository.deleteExpired(now) + revocationRepository.deleteExpired(now));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired refresh tokens and revocations", deleted);
+        }
+    }
+
+    private void revokeFamily(RefreshToken family, String reason) {
+        log.warn("Revoking refresh token family {} of user {}: {}", family.getFamilyId(), family.getUserId(), reason);
+        revoke(family);
+        // Access token của phiên có thể đã lọt cùng refresh token
+        accessTokenDenylist.denySession(family.getFamilyId(), family.getUserId());
+    }
+
+    private void revoke(RefreshToken family) {
+        revocations.revoke(family.getFamilyId(), family.getUserId(), family.getExpiresAt());
+        refreshTokenRepository.deleteById(family.getFamilyId());
+    }
+
+    private BadCredentialsException rejected(String result) {
+        count(result);
+        return new BadCredentialsException("Invalid refresh token");
+    }
+
+    private void count(String result) {
+        counters.computeIfAbsent(result, name -> Counter.builder("auth.refresh")
+                .tag("result", name)
+                .register(meterRegistry)).increment();
+    }
+
+    private byte[] secretFor(UUID familyId, int generation) {
+        Mac mac = hmac.newMac();
+        mac.update(ByteBuffer.allocate(16 + Integer.BYTES)
+                .putLong(familyId.getMostSignificantBits())
+                .putLong(familyId.getLeastSignificantBits())
+                .putInt(generation)
+                .array());
+        return mac.doFinal();
+    }
+
+    private static String encode(UUID familyId, int generation, byte[] secret) {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_LENGTH)
+                .putLong(familyId.getMostSignificantBits())
+                .putLong(familyId.getLeastSignificantBits())
+                .putInt(generation)
+                .put(secret);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    private static Optional<ParsedToken> parse(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (bytes.length != TOKEN_LENGTH) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        UUID familyId = new UUID(buffer.getLong(), buffer.getLong());
+        int generation = buffer.getInt();
+        byte[] secret = new byte[SECRET_LENGTH];
+        buffer.get(secret);
+        return Optional.of(new ParsedToken(familyId, generation, secret));
+    }
+
+    private static byte[] sha256(byte[] secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private record ParsedToken(UUID familyId, int generation, byte[] secret) {
+    }
+}
@@ -0,0 +1,127 @@
+package fpt.sep.apjf.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.dto.TokenIntrospectionDTO;
+import fpt.sep.apjf.service.TokenIntrospectionService;
+import fpt.sep.apjf.utils.AccessTokenDenylist;
+import fpt.sep.apjf.utils.JwtClaimsView;
+import fpt.sep.apjf.utils.VerifiedTokenCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Batch introspection for downstream services. Tokens are verified through {@link VerifiedTokenCache}
+ * (so {@code JwtUtils} does the signature check and repeated tokens are cached) and checked against
+ * {@link AccessTokenDenylist}; nothing touches the database.
+ * <p>
+ * The batch is cut into one chunk per core (never smaller than {@code spring.app.introspectMinChunk},
+ * so small batches stay on the request thread); the first chunk runs on the caller while the rest run on
+ * {@code tokenVerifyExecutor}. Chunks are written as NDJSON in input order as soon as each one is done.
+ * Meters: {@code auth.introspect.batch} (batch sizes) and {@code auth.introspect.tokens} (tag {@code result}).
+ */
+@Service
+public class TokenIntrospectionServiceImpl implements TokenIntrospectionService {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AccessTokenDenylist accessTokenDenylist;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final int parallelism;
+    private final int minChunk;
+    private final DistributionSummary batchSizes;
+    private final Counter active;
+    private final Counter revoked;
+    private final Counter invalid;
+
+    public TokenIntrospectionServiceImpl(VerifiedTokenCache verifiedTokenCache,
+                                         AccessTokenDenylist accessTokenDenylist,
+                                         ObjectMapper objectMapper,
+                                         @Qualifier("tokenVerifyExecutor") Executor executor,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${spring.app.introspectThreads:0}") int threads,
+                                         @Value("${spring.app.introspectMinChunk:32}") int minChunk) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessTokenDenylist = accessTokenDenylist;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.minChunk = Math.max(1, minChunk);
+        this.batchSizes = DistributionSummary.builder("auth.introspect.batch").register(meterRegistry);
+        this.active = Counter.builder("auth.introspect.tokens").tag("result", "active").register(meterRegistry);
+        this.revoked = Counter.builder("auth.introspect.tokens").tag("result", "revoked").register(meterRegistry);
+        this.invalid = Counter.builder("auth.introspect.tokens").tag("result", "invalid").register(meterRegistry);
+    }
+
+    @Override
+    public void introspect(List<String> tokens, OutputStream out) throws IOException {
+        int size = tokens.size();
+        batchSizes.record(size);
+        int chunkSize = Math.max(minChunk, -Math.floorDiv(-size, parallelism));
+
+        // Gửi các chunk sau cho pool trước, chunk đầu chạy ngay trên thread hiện tại
+        List<CompletableFuture<List<TokenIntrospectionDTO>>> pending = new ArrayList<>();
+        for (int from = chunkSize; from < size; from += chunkSize) {
+            int start = from;
+            int end = Math.min(size, from + chunkSize);
+            pending.add(CompletableFuture.supplyAsync(() -> introspectRange(tokens, start, end), executor));
+        }
+        write(introspectRange(tokens, 0, Math.min(size, chunkSize)), out);
+        for (CompletableFuture<List<TokenIntrospectionDTO>> chunk : pending) {
+            write(join(chunk), out);
+        }
+    }
+
+    private List<TokenIntrospectionDTO> introspectRange(List<String> tokens, int from, int to) {
+        List<TokenIntrospectionDTO> results = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            results.add(introspect(i, tokens.get(i)));
+        }
+        return results;
+    }
+
+    private TokenIntrospectionDTO introspect(int index, String token) {
+        JwtClaimsView claims = token == null || token.isBlank() ? null
+                : verifiedTokenCache.get(token).map(VerifiedTokenCache.CachedAuthentication::claims).orElse(null);
+        if (claims == null) {
+            invalid.increment();
+            return new TokenIntrospectionDTO(index, false, false, null, null, null);
+        }
+        boolean isRevoked = accessTokenDenylist.isRevoked(claims);
+        (isRevoked ? revoked : active).increment();
+        Instant expiresAt = claims.expiresAt();
+        return new TokenIntrospectionDTO(index, !isRevoked, isRevoked, claims.subject(), claims.roles(),
+                expiresAt == null ? null : expiresAt.getEpochSecond());
+    }
+
+    private void write(List<TokenIntrospectionDTO> results, OutputStream out) throws IOException {
+        for (TokenIntrospectionDTO result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static List<TokenIntrospectionDTO> join(CompletableFuture<List<TokenIntrospectionDTO>> chunk) {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package fpt.sep.apjf.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import fpt.sep.apjf.entity.User;
+import fpt.sep.apjf.repository.UserLoginRow;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.utils.RoleRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of immutable {@link CachedUser} snapshots, keyed by id with secondary email and
+ * username indexes, so login and OTP flows do not query {@code users} + {@code user_authority} every time.
+ * Misses are loaded with the login projection ({@link UserRepository#LOGIN_ROWS_SELECT}), not the entity.
+ * <p>
+ * Role lists and {@link GrantedAuthority} instances come interned from {@link RoleRegistry}, so users
+ * with the same roles share them. Entries expire after {@code spring.app.userCacheTtl}, which also
+ * bounds staleness across instances; local changes call {@link #evict}, which removes the entry
+ * immediately and again after commit. A load that was already reading when an eviction happened does
+ * not put its (possibly old) row back. Meters: {@code user.cache.requests} (tags {@code key},
+ * {@code result}) and {@code user.cache.size}.
+ * <p>
+ * Entries may be stale by up to the TTL, so they must not be used to authenticate: login goes through
+ * {@link #loadByEmail}, which always reads the current password hash and {@code enabled} flag.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final Cache<Long, CachedUser> byId;
+    private final Cache<String, Long> idByEmail;
+    private final Cache<String, Long> idByUsername;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    // Tăng mỗi lần evict: load bắt đầu trước lần evict đó không ghi kết quả vào cache
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserCache(UserRepository userRepository,
+                     RoleRegistry roleRegistry,
+                     MeterRegistry meterRegistry,
+                     @Value("${spring.app.userCacheSize:10000}") long maxSize,
+                     @Value("${spring.app.userCacheTtl:PT2M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        this.meterRegistry = meterRegistry;
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.idByEmail = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.idByUsername = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        Gauge.builder("user.cache.size", byId, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    public Optional<CachedUser> findById(Long id) {
+        CachedUser cached = byId.getIfPresent(id);
+        count("id", cached != null);
+        return cached != null ? Optional.of(cached) : load(() -> userRepository.findLoginRowsById(id));
+    }
+
+    public Optional<CachedUser> findByEmail(String email) {
+        // Email không phân biệt hoa thường (giống query), index giữ dạng chữ thường
+        return findByIndex("email", idByEmail, normalizeEmail(email), user -> normalizeEmail(user.email()),
+                () -> userRepository.findLoginRowsByEmail(email));
+    }
+
+    /**
+     * Luôn đọc từ DB (dùng cho đăng nhập) rồi cập nhật cache; không bao giờ trả bản cache.
+     */
+    public Optional<CachedUser> loadByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return load(() -> userRepository.findLoginRowsByEmail(email));
+    }
+
+    public Optional<CachedUser> findByUsername(String username) {
+        return findByIndex("username", idByUsername, username, CachedUser::username,
+                () -> userRepository.findLoginRowsByUsername(username));
+    }
+
+    /**
+     * Xóa user khỏi cache ngay và một lần nữa sau khi transaction commit, để không giữ lại bản
+     * được đọc bởi request khác trong lúc transaction chưa commit.
+     */
+    public void evict(Long id) {
+        if (id == null) {
+            return;
+        }
+        evictNow(id);
+        TransactionHooks.afterCommit(() -> evictNow(id));
+    }
+
+    private void evictNow(Long id) {
+        evictions.incrementAndGet();
+        CachedUser previous = byId.asMap().remove(id);
+        if (previous != null) {
+            if (previous.email() != null) {
+                idByEmail.asMap().remove(normalizeEmail(previous.email()), id);
+            }
+            idByUsername.asMap().remove(previous.username(), id);
+        }
+    }
+
+    private Optional<CachedUser> findByIndex(String keyName, Cache<String, Long> index, String key,
+                                             Function<CachedUser, String> keyOf, Supplier<List<UserLoginRow>> loader) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        Long id = index.getIfPresent(key);
+        CachedUser cached = id != null ? byId.getIfPresent(id) : null;
+        // Index có thể trỏ tới user đã đổi email/username
+        if (cached != null && key.equals(keyOf.apply(cached))) {
+            count(keyName, true);
+            return Optional.of(cached);
+        }
+        count(keyName, false);
+        return load(loader);
+    }
+
+    private Optional<CachedUser> load(Supplier<List<UserLoginRow>> loader) {
+        long epoch = evictions.get();
+        Optional<CachedUser> loaded = snapshot(loader.get());
+        if (evictions.get() != epoch) {
+            // Có evict trong lúc đọc: dòng vừa đọc có thể đã cũ
+            return loaded;
+        }
+        loaded.ifPresent(user -> {
+            byId.put(user.id(), user);
+            if (user.email() != null) {
+                idByEmail.put(normalizeEmail(user.email()), user.id());
+            }
+            idByUsername.put(user.username(), user.id());
+        });
+        return loaded;
+    }
+
+    private Optional<CachedUser> snapshot(List<UserLoginRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        UserLoginRow user = rows.get(0);
+        // Email trùng khác hoa/thường: không gộp role của nhiều user vào một bản chụp
+        long users = rows.stream().map(UserLoginRow::id).distinct().count();
+        if (users > 1) {
+            throw new IncorrectResultSizeDataAccessException("Login rows span " + users + " users", 1, (int) users);
+        }
+        List<String> roles = rows.stream()
+                .map(UserLoginRow::authority)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+        RoleRegistry.RoleSet roleSet = roleRegistry.roleSet(roles);
+        return Optional.of(new CachedUser(user.id(), user.username(), user.email(), user.password(),
+                user.enabled(), roleSet.roles(), roleSet.authorities()));
+    }
+
+    private static String normalizeEmail(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    private void count(String key, boolean hit) {
+        counters.computeIfAbsent(key + (hit ? ":hit" : ":miss"), name -> Counter.builder("user.cache.requests")
+                .tag("key", key)
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * Bản chụp bất biến của {@link User}; {@code roles} và {@code authorities} được dùng chung giữa các user.
+     */
+    public record CachedUser(Long id,
+                             String username,
+                             String email,
+                             String password,
+                             boolean enabled,
+                             List<String> roles,
+                             List<GrantedAuthority> authorities) implements UserDetails {
+
+        @Override
+        public Collection<? extends GrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        @Override
+        public String getPassword() {
+            return password;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        // Không in hash mật khẩu ra log
+        @Override
+        public String toString() {
+            return "CachedUser[id=" + id + ", username=" + username + ", email=" + email + ", enabled=" + enabled
+                    + ", roles=" + roles + "]";
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package fpt.sep.apjf.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link UserDetailsService} for the {@code AuthenticationManager}: users are looked up by email with the
+ * login-projection query instead of loading the {@code User} entity. The result is used to check the
+ * password, so it always comes from the database ({@link UserCache#loadByEmail}), never from the cache.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDetailsServiceImpl implements UserDetailsService {
+
+    private final UserCache userCache;
+
+    @Override
+    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return userCache.loadByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+}
@@ -0,0 +1,183 @@
+package fpt.sep.apjf.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams import records from CSV (header row with {@code email,password[,username][,role]}, RFC 4180
+ * quoting, no line breaks inside fields) or NDJSON (one object per line with the same keys). Blank lines
+ * are ignored and do not count as records; a malformed record is returned with {@link Row#error()} set
+ * so it can be counted without stopping the import.
+ */
+public class UserImportReader implements Closeable {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;
+    private long line;
+
+    public UserImportReader(InputStream in, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Bỏ qua {@code count} bản ghi (khi chạy tiếp từ checkpoint); trả về số bản ghi thực sự bỏ qua được.
+     */
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && nextLine() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Đọc tối đa {@code max} bản ghi; danh sách rỗng nghĩa là đã hết dữ liệu.
+     */
+    public List<Row> next(int max) throws IOException {
+        List<Row> rows = new ArrayList<>(max);
+        String value;
+        while (rows.size() < max && (value = nextLine()) != null) {
+            rows.add(format == Format.CSV ? parseCsv(value) : parseJson(value));
+        }
+        return rows;
+    }
+
+    private String nextLine() throws IOException {
+        String value;
+        do {
+            value = reader.readLine();
+            line++;
+        } while (value != null && value.isBlank());
+        if (value != null && format == Format.CSV && columns == null) {
+            columns = header(value);
+            return nextLine();
+        }
+        return value;
+    }
+
+    private Map<String, Integer> header(String value) {
+        // Bỏ BOM ở đầu file (CSV xuất từ Excel)
+        List<String> names = splitCsv(value.startsWith("\uFEFF") ? value.substring(1) : value);
+        if (names == null) {
+            throw new IllegalArgumentException("Malformed CSV header");
+        }
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!header.containsKey("email") || !header.containsKey("password")) {
+            throw new IllegalArgumentException("CSV header must contain email and password columns");
+        }
+        return header;
+    }
+
+    private Row parseCsv(String value) {
+        List<String> fields = splitCsv(value);
+        if (fields == null) {
+            return Row.invalid(line, "Malformed CSV line");
+        }
+        return new Row(line, field(fields, "email"), field(fields, "password"), field(fields, "username"),
+                field(fields, "role"), null);
+    }
+
+    private String field(List<String> fields, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Row parseJson(String value) {
+        try {
+            JsonNode node = objectMapper.readTree(value);
+            if (!node.isObject()) {
+                return Row.invalid(line, "Expected a JSON object");
+            }
+            return new Row(line, text(node, "email"), text(node, "password"), text(node, "username"),
+                    text(node, "role"), null);
+        } catch (JsonProcessingException e) {
+            return Row.invalid(line, "Malformed JSON");
+        }
+    }
+
+    private static String text(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Tách một dòng CSV; trả về null nếu dấu ngoặc kép không đóng.
+     */
+    static List<String> splitCsv(String value) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < value.length() && value.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Một bản ghi đầu vào; {@code line} là số dòng trong file (tính từ 1) để báo lỗi.
+     */
+    public record Row(long line, String email, String password, String username, String role, String error) {
+
+        static Row invalid(long line, String error) {
+            return new Row(line, null, null, null, null, error);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package fpt.sep.apjf.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.dto.UserImportJobDTO;
+import fpt.sep.apjf.entity.Authority;
+import fpt.sep.apjf.entity.UserImportJob;
+import fpt.sep.apjf.entity.UserImportJob.ImportStatus;
+import fpt.sep.apjf.entity.VerifyToken;
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.repository.AuthorityRepository;
+import fpt.sep.apjf.repository.UserIdentityRow;
+import fpt.sep.apjf.repository.UserImportJobRepository;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.service.EmailOutboxService;
+import fpt.sep.apjf.service.EmailOutboxService.Recipient;
+import fpt.sep.apjf.service.UserImportService;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import fpt.sep.apjf.service.VerifyTokenStore.StoredToken;
+import fpt.sep.apjf.service.impl.UserImportReader.Format;
+import fpt.sep.apjf.service.impl.UserImportReader.Row;
+import fpt.sep.apjf.utils.BoundedPasswordEncoder;
+import fpt.sep.apjf.utils.OtpHasher;
+import fpt.sep.apjf.utils.OtpUtils;
+import fpt.sep.apjf.utils.SignedOtpCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk registration for onboarding: reads CSV/NDJSON as a stream and imports it in chunks of
+ * {@code spring.app.importChunkSize} records. Per chunk:
+ * <ol>
+ *     <li>rows are validated and de-duplicated in memory;</li>
+ *     <li>one query finds every email/username of the chunk that already exists (existing emails are skipped);</li>
+ *     <li>the remaining passwords are hashed in parallel on {@code importHashExecutor}, outside any transaction;</li>
+ *     <li>one transaction inserts {@code users} (ids pre-allocated from the identity sequence) and
+ *     {@code user_authority} with JDBC batches, issues the registration codes, enqueues the emails in one batch
+ *     and advances the job's checkpoint.</li>
+ * </ol>
+ * A unique-key race with a concurrent registration retries the chunk once with a fresh lookup. If the stream
+ * or a chunk fails, the job is marked {@link ImportStatus#FAILED}; sending the same input again with its
+ * {@code jobId} resumes after the last committed chunk. Meter: {@code user.import.rows} (tag {@code result}).
+ */
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final int MIN_PASSWORD_LENGTH = 6;
+    private static final int MAX_LENGTH = 255;
+    private static final String DEFAULT_AVATAR = "https://engineering.usask.ca/images/no_avatar.jpg";
+
+    private static final String NEXT_USER_IDS =
+            "SELECT nextval(pg_get_serial_sequence('users', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_USER = "INSERT INTO users (id, username, password, email, avatar, enabled, "
+            + "email_verified) VALUES (?, ?, ?, ?, ?, false, false)";
+    private static final String INSERT_USER_AUTHORITY = "INSERT INTO user_authority (user_id, authority_id) VALUES (?, ?)";
+
+    private final UserRepository userRepository;
+    private final AuthorityRepository authorityRepository;
+    private final UserImportJobRepository jobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VerifyTokenStore verifyTokenStore;
+    private final OtpUtils otpUtils;
+    private final OtpHasher otpHasher;
+    private final SignedOtpCodec signedOtpCodec;
+    private final EmailOutboxService emailOutboxService;
+    private final PasswordEncoder hashEncoder;
+    private final Executor hashExecutor;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final Duration staleAfter;
+    private final String defaultRole;
+    private final Counter imported;
+    private final Counter skipped;
+    private final Counter failed;
+
+    public UserImportServiceImpl(UserRepository userRepository,
+                                 AuthorityRepository authorityRepository,
+                                 UserImportJobRepository jobRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 VerifyTokenStore verifyTokenStore,
+                                 OtpUtils otpUtils,
+                                 OtpHasher otpHasher,
+                                 SignedOtpCodec signedOtpCodec,
+                                 EmailOutboxService emailOutboxService,
+                                 PasswordEncoder passwordEncoder,
+                                 @Qualifier("importHashExecutor") Executor hashExecutor,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.app.importChunkSize:500}") int chunkSize,
+                                 @Value("${spring.app.importStaleAfter:PT5M}") Duration staleAfter,
+                                 @Value("${spring.app.importDefaultRole:ROLE_USER}") String defaultRole) {
+        this.userRepository = userRepository;
+        this.authorityRepository = authorityRepository;
+        this.jobRepository = jobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.verifyTokenStore = verifyTokenStore;
+        this.otpUtils = otpUtils;
+        this.otpHasher = otpHasher;
+        this.signedOtpCodec = signedOtpCodec;
+        this.emailOutboxService = emailOutboxService;
+        // Băm trên pool import, không đi qua hàng đợi của login
+        this.hashEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded ? bounded.delegate() : passwordEncoder;
+        this.hashExecutor = hashExecutor;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.staleAfter = staleAfter;
+        this.defaultRole = defaultRole;
+        this.imported = Counter.builder("user.import.rows").tag("result", "imported").register(meterRegistry);
+        this.skipped = Counter.builder("user.import.rows").tag("result", "skipped").register(meterRegistry);
+        this.failed = Counter.builder("user.import.rows").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Override
+    public UserImportJobDTO importUsers(InputStream in, Format format, UUID jobId) throws IOException {
+        UUID id = jobId == null ? createJob(format) : claim(jobId);
+        try (UserImportReader reader = new UserImportReader(in, format, objectMapper)) {
+            UserImportJob job = jobRepository.findById(id).orElseThrow();
+            if (!job.getFormat().equals(format.name())) {
+                throw new IllegalArgumentException("Import job " + id + " expects " + job.getFormat() + " input");
+            }
+            long checkpoint = job.getProcessedRows();
+            if (reader.skip(checkpoint) < checkpoint) {
+                throw new IllegalArgumentException("Input has fewer records than the job checkpoint (" + checkpoint + ")");
+            }
+            Map<String, Long> authorityIds = loadAuthorityIds();
+            List<Row> chunk;
+            while (!(chunk = reader.next(chunkSize)).isEmpty()) {
+                importChunk(id, chunk, authorityIds);
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.finish(id, ImportStatus.COMPLETED, null, LocalDateTime.now()));
+        } catch (IOException | RuntimeException e) {
+            String error = truncate(e.getMessage());
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.finish(id, ImportStatus.FAILED, error, LocalDateTime.now()));
+            log.warn("User import {} stopped, resumable from its checkpoint: {}", id, e.getMessage());
+            throw e;
+        }
+        return getJob(id);
+    }
+
+    @Override
+    public UserImportJobDTO getJob(UUID jobId) {
+        UserImportJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Import job not found"));
+        return new UserImportJobDTO(job.getId(), job.getStatus().name(), job.getProcessedRows(),
+                job.getImportedRows(), job.getSkippedRows(), job.getFailedRows(), job.getLastError(),
+                job.getUpdatedAt());
+    }
+
+    private UUID createJob(Format format) {
+        LocalDateTime now = LocalDateTime.now();
+        UUID id = UUID.randomUUID();
+        jobRepository.save(UserImportJob.builder()
+                .id(id)
+                .format(format.name())
+                .status(ImportStatus.RUNNING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        return id;
+    }
+
+    private UUID claim(UUID jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> jobRepository.claim(jobId, now, now.minus(staleAfter)));
+        if (claimed == null || claimed == 0) {
+            UserImportJob job = jobRepository.findById(jobId)
+                    .orElseThrow(() -> new EntityNotFoundException("Import job not found"));
+            throw new IllegalArgumentException(job.getStatus() == ImportStatus.COMPLETED
+                    ? "Import job already completed" : "Import job is still running");
+        }
+        return jobId;
+    }
+
+    private Map<String, Long> loadAuthorityIds() {
+        Map<String, Long> ids = new HashMap<>();
+        for (Authority authority : authorityRepository.findAll()) {
+            ids.putIfAbsent(authority.getAuthority(), authority.getId());
+        }
+        return ids;
+    }
+
+    private void importChunk(UUID jobId, List<Row> rows, Map<String, Long> authorityIds) {
+        Tally tally = new Tally();
+        List<Candidate> candidates = validate(rows, authorityIds, tally);
+
+        // Một query cho cả lô, rồi chỉ băm mật khẩu của các dòng sẽ được insert
+        Tally attempt = tally.copy();
+        List<Candidate> fresh = excludeExisting(candidates, attempt);
+        Map<Candidate, String> hashed = new HashMap<>();
+        hashAll(fresh, hashed);
+        try {
+            insert(jobId, rows.size(), fresh, hashed, attempt);
+        } catch (DataIntegrityViolationException e) {
+            // Email/username vừa được đăng ký song song: tra lại một lần rồi thử lại cả lô
+            log.debug("Import chunk conflicted with a concurrent registration, retrying: {}", e.getMessage());
+            attempt = tally.copy();
+            fresh = excludeExisting(candidates, attempt);
+            hashAll(fresh, hashed);
+            insert(jobId, rows.size(), fresh, hashed, attempt);
+        }
+        imported.increment(fresh.size());
+        skipped.increment(attempt.skipped);
+        failed.increment(attempt.failed);
+    }
+
+    private List<Candidate> validate(List<Row> rows, Map<String, Long> authorityIds, Tally tally) {
+        List<Candidate> candidates = new ArrayList<>(rows.size());
+        Set<String> emails = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (Row row : rows) {
+            String error = row.error();
+            String email = row.email();
+            String username = row.username() != null ? row.username() : email;
+            Long authorityId = authorityIds.get(row.role() != null ? row.role() : defaultRole);
+            if (error == null && (email == null || email.length() > MAX_LENGTH || !EMAIL.matcher(email).matches())) {
+                error = "invalid email";
+            } else if (error == null && (row.password() == null || row.password().length() < MIN_PASSWORD_LENGTH)) {
+                error = "password must be at least " + MIN_PASSWORD_LENGTH + " characters";
+            } else if (error == null && username.length() > MAX_LENGTH) {
+                error = "username too long";
+            } else if (error == null && authorityId == null) {
+                error = "unknown role";
+            }
+            if (error != null) {
+                reject(row, error, tally);
+                continue;
+            }
+            String emailKey = email.toLowerCase(Locale.ROOT);
+            if (!emails.add(emailKey)) {
+                // Email lặp lại trong file: giữ bản ghi đầu tiên
+                tally.skipped++;
+            } else if (!usernames.add(username)) {
+                reject(row, "duplicate username in input", tally);
+            } else {
+                candidates.add(new Candidate(row, email, emailKey, username, authorityId));
+            }
+        }
+        return candidates;
+    }
+
+    private List<Candidate> excludeExisting(List<Candidate> candidates, Tally tally) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenUsernames = new HashSet<>();
+        for (UserIdentityRow row : userRepository.findIdentitiesByEmailsOrUsernames(
+                candidates.stream().map(Candidate::emailKey).toList(),
+                candidates.stream().map(Candidate::username).toList())) {
+            if (row.email() != null) {
+                takenEmails.add(row.email().toLowerCase(Locale.ROOT));
+            }
+            takenUsernames.add(row.username());
+        }
+        List<Candidate> fresh = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            if (takenEmails.contains(candidate.emailKey())) {
+                tally.skipped++;
+            } else if (takenUsernames.contains(candidate.username())) {
+                reject(candidate.row(), "username already taken", tally);
+            } else {
+                fresh.add(candidate);
+            }
+        }
+        return fresh;
+    }
+
+    private void hashAll(List<Candidate> candidates, Map<Candidate, String> hashed) {
+        Map<Candidate, CompletableFuture<String>> pending = new HashMap<>();
+        for (Candidate candidate : candidates) {
+            if (!hashed.containsKey(candidate)) {
+                pending.put(candidate, CompletableFuture.supplyAsync(
+                        () -> hashEncoder.encode(candidate.row().password()), hashExecutor));
+            }
+        }
+        pending.forEach((candidate, hash) -> hashed.put(candidate, hash.join()));
+    }
+
+    private void insert(UUID jobId, int processed, List<Candidate> candidates, Map<Candidate, String> hashed,
+                        Tally tally) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!candidates.isEmpty()) {
+                List<Long> ids = jdbcTemplate.queryForList(NEXT_USER_IDS, Long.class, candidates.size());
+                List<Object[]> users = new ArrayList<>(candidates.size());
+                List<Object[]> authorities = new ArrayList<>(candidates.size());
+                for (int i = 0; i < candidates.size(); i++) {
+                    Candidate candidate = candidates.get(i);
+                    users.add(new Object[]{ids.get(i), candidate.username(), hashed.get(candidate), candidate.email(),
+                            DEFAULT_AVATAR});
+                    authorities.add(new Object[]{ids.get(i), candidate.authorityId()});
+                }
+                jdbcTemplate.batchUpdate(INSERT_USER, users);
+                jdbcTemplate.batchUpdate(INSERT_USER_AUTHORITY, authorities);
+
+                // Mã xác thực phát hành sau khi user đã có trong DB (verify_token tham chiếu users)
+                List<Recipient> recipients = new ArrayList<>(candidates.size());
+                for (int i = 0; i < candidates.size(); i++) {
+                    Candidate candidate = candidates.get(i);
+                    recipients.add(new Recipient(candidate.email(),
+                            issueCode(ids.get(i), candidate.email(), hashed.get(candidate))));
+                }
+                emailOutboxService.enqueueAll(recipients, VerifyTokenType.REGISTRATION);
+            }
+            jobRepository.advance(jobId, processed, candidates.size(), tally.skipped, tally.failed, LocalDateTime.now());
+        });
+    }
+
+    private String issueCode(Long userId, String email, String passwordHash) {
+        if (signedOtpCodec.isEnabled(VerifyTokenType.REGISTRATION)) {
+            return signedOtpCodec.issue(VerifyTokenType.REGISTRATION, userId, email, passwordHash,
+                    Instant.now().plus(VerifyToken.OTP_TTL));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String otp = otpUtils.generateOTP();
+        verifyTokenStore.replace(new StoredToken(userId, VerifyTokenType.REGISTRATION,
+                otpHasher.hash(userId, VerifyTokenType.REGISTRATION, otp), now, now.plus(VerifyToken.OTP_TTL)));
+        return otp;
+    }
+
+    private static void reject(Row row, String error, Tally tally) {
+        tally.failed++;
+        log.debug("Import line {} rejected: {}", row.line(), error);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    private record Candidate(Row row, String email, String emailKey, String username, Long authorityId) {
+    }
+
+    private static final class Tally {
+
+        long skipped;
+        long failed;
+
+        Tally copy() {
+            Tally copy = new Tally();
+            copy.skipped = skipped;
+            copy.failed = failed;
+            return copy;
+        }
+    }
+}
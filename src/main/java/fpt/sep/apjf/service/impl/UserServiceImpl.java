@@ -7,25 +7,29 @@ import fpt.sep.apjf.entity.User;
 import fpt.sep.apjf.entity.VerifyToken;
 import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
 import fpt.sep.apjf.exception.AppException;
+import fpt.sep.apjf.exception.ServiceBusyException;
 import fpt.sep.apjf.repository.UserRepository;
-import fpt.sep.apjf.repository.VerifyTokenRepository;
+import fpt.sep.apjf.service.EmailOutboxService;
+import fpt.sep.apjf.service.RefreshTokenService;
 import fpt.sep.apjf.service.UserService;
-import fpt.sep.apjf.utils.EmailUtils;
-import fpt.sep.apjf.utils.JwtUtils;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import fpt.sep.apjf.service.VerifyTokenStore.StoredToken;
+import fpt.sep.apjf.service.impl.UserCache.CachedUser;
+import fpt.sep.apjf.utils.OtpHasher;
 import fpt.sep.apjf.utils.OtpUtils;
+import fpt.sep.apjf.utils.SignedOtpCodec;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -35,21 +39,23 @@ import java.util.Optional;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final VerifyTokenRepository verifyTokenRepository;
+    private final VerifyTokenStore verifyTokenStore;
     private final PasswordEncoder passwordEncoder;
     private final OtpUtils otpUtils;
-    private final EmailUtils emailUtils;
-    private final JwtUtils jwtUtils;
+    private final OtpHasher otpHasher;
+    private final SignedOtpCodec signedOtpCodec;
+    private final UserCache userCache;
+    private final EmailOutboxService emailOutboxService;
+    private final RefreshTokenService refreshTokenService;
 
-    private static final Duration OTP_TTL = Duration.ofMinutes(10);
     private static final Duration OTP_THROTTLE = Duration.ofMinutes(1);
 
     @Override
     @Transactional
     public LoginResponse login(LoginDTO loginDTO) {
 
-        // 1. Tìm user theo email (hoặc username tuỳ ý)
-        User user = userRepository.findByEmail(loginDTO.email())
+        // 1. Tìm user theo email, luôn đọc hash mật khẩu hiện tại từ DB (không dùng bản cache)
+        CachedUser user = userCache.loadByEmail(loginDTO.email())
                 .orElseThrow(() -> new BadCredentialsException("Invalid email or password"));
 
         // 2. Tự so khớp mật khẩu
@@ -57,15 +63,13 @@ public class UserServiceImpl implements UserService {
             throw new BadCredentialsException("Invalid email or password");
         }
 
-        // 3. Lấy role & sinh token
-        List<String> roles = user.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .toList();
+        // 3. Hash cũ hoặc yếu hơn mức mục tiêu: băm lại khi đã có mật khẩu gốc
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            rehash(user.id(), loginDTO.password());
+        }
 
-        return new LoginResponse(
-                user.getUsername(),      // hoặc user.getEmail() nếu muốn
-                roles,
-                jwtUtils.generateTokenFromUsername(user));
+        // 4. Role đã có sẵn trong bản cache (danh sách bất biến, dùng chung); access token gắn với phiên mới
+        return refreshTokenService.openSession(user);
     }
 
     @Override
@@ -82,87 +86,132 @@ public class UserServiceImpl implements UserService {
         user.setEnabled(false);
         userRepository.save(user);
 
-        createAndSendToken(user, VerifyTokenType.REGISTRATION);
+        createAndSendToken(user.getId(), user.getEmail(), user.getPassword(), VerifyTokenType.REGISTRATION);
     }
 
     @Override
     @Transactional
     public void verifyAccount(String email, String otp) {
-        User user = userRepository.findByEmail(email)
+        CachedUser user = userCache.findByEmail(email)
                 .orElseThrow(() -> new AppException("Email không tồn tại."));
-        VerifyToken token = verifyTokenRepository
-                .findTopByUserAndTypeOrderByRequestedTimeDesc(user, VerifyTokenType.REGISTRATION)
+        if (signedOtpCodec.isSignedToken(otp)) {
+            // Mã ký tự chứa hạn và chữ ký: không đọc verify_token
+            if (!signedOtpCodec.verify(otp, VerifyTokenType.REGISTRATION, user.id(), user.email(), user.password(),
+                    Instant.now())) {
+                throw new AppException("OTP sai hoặc đã hết hạn.");
+            }
+            userRepository.enableById(user.id());
+            userCache.evict(user.id());
+            return;
+        }
+        StoredToken token = verifyTokenStore.find(user.id(), VerifyTokenType.REGISTRATION)
                 .orElseThrow(() -> new AppException("OTP không tồn tại."));
 
-        if (token.getExpirationTime().isBefore(LocalDateTime.now()) || !token.getToken().equals(otp)) {
+        if (token.isExpired(LocalDateTime.now()) || !otpHasher.matches(token.tokenHash(), user.id(), VerifyTokenType.REGISTRATION, otp)) {
             throw new AppException("OTP sai hoặc đã hết hạn.");
         }
 
-        user.setEnabled(true);
-        userRepository.save(user);
-        verifyTokenRepository.delete(token);
+        userRepository.enableById(user.id());
+        userCache.evict(user.id());
+        verifyTokenStore.remove(user.id(), VerifyTokenType.REGISTRATION);
     }
 
     @Override
     @Transactional
     public void regenerateOtp(String email) {
-        User user = userRepository.findByEmail(email)
+        CachedUser user = userCache.findByEmail(email)
                 .orElseThrow(() -> new AppException("User không tồn tại."));
-        VerifyToken token = verifyTokenRepository
-                .findTopByUserAndTypeOrderByRequestedTimeDesc(user, VerifyTokenType.REGISTRATION)
+        if (signedOtpCodec.isEnabled(VerifyTokenType.REGISTRATION)) {
+            if (user.enabled()) {
+                throw new AppException("Tài khoản đã được xác thực.");
+            }
+            // Không có bản ghi OTP để giới hạn tần suất: RateLimitFilter giới hạn theo email
+            createAndSendToken(user.id(), user.email(), user.password(), VerifyTokenType.REGISTRATION);
+            return;
+        }
+        StoredToken token = verifyTokenStore.find(user.id(), VerifyTokenType.REGISTRATION)
                 .orElseThrow(() -> new AppException("Chưa có OTP trước đó."));
 
-        if (Duration.between(token.getRequestedTime(), LocalDateTime.now()).compareTo(OTP_THROTTLE) < 0) {
+        if (Duration.between(token.requestedTime(), LocalDateTime.now()).compareTo(OTP_THROTTLE) < 0) {
             throw new AppException("Vui lòng chờ ít nhất 1 phút trước khi yêu cầu gửi lại OTP.");
         }
 
-        verifyTokenRepository.delete(token);
-        createAndSendToken(user, VerifyTokenType.REGISTRATION);
+        createAndSendToken(user.id(), user.email(), user.password(), VerifyTokenType.REGISTRATION);
     }
 
     @Override
     @Transactional
     public void forgotPassword(String email) {
-        User user = userRepository.findByEmail(email)
+        CachedUser user = userCache.findByEmail(email)
                 .orElseThrow(() -> new AppException("User không tồn tại."));
-        createAndSendToken(user, VerifyTokenType.RESET_PASSWORD);
+        createAndSendToken(user.id(), user.email(), user.password(), VerifyTokenType.RESET_PASSWORD);
     }
 
     @Override
     @Transactional
     public void resetPassword(String email, String otp, String newPassword) {
-        User user = findByEmail(email).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        VerifyToken token = verifyTokenRepository.findTopByUserAndTypeOrderByRequestedTimeDesc(user, VerifyTokenType.RESET_PASSWORD)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid token"));
-
-        if (!otpUtils.validateOTP(token.getToken(), otp)) {
-            throw new IllegalArgumentException("Invalid OTP");
+        CachedUser user = userCache.findByEmail(email).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        if (signedOtpCodec.isSignedToken(otp)) {
+            if (!signedOtpCodec.verify(otp, VerifyTokenType.RESET_PASSWORD, user.id(), user.email(), user.password(),
+                    Instant.now())) {
+                throw new IllegalArgumentException("Invalid or expired OTP");
+            }
+            // Chỉ đổi nếu hash vẫn là hash mà mã đã ký: mã đã dùng (hoặc bản cache cũ ở instance khác) bị từ chối
+            if (userRepository.updatePasswordIfCurrent(user.id(), user.password(),
+                    passwordEncoder.encode(newPassword)) == 0) {
+                userCache.evict(user.id());
+                throw new IllegalArgumentException("Invalid or expired OTP");
+            }
+        } else {
+            StoredToken token = verifyTokenStore.find(user.id(), VerifyTokenType.RESET_PASSWORD)
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid token"));
+
+            if (!otpHasher.matches(token.tokenHash(), user.id(), VerifyTokenType.RESET_PASSWORD, otp)) {
+                throw new IllegalArgumentException("Invalid OTP");
+            }
+
+            if (token.isExpired(LocalDateTime.now())) {
+                throw new IllegalArgumentException("OTP expired");
+            }
+
+            userRepository.updatePassword(user.id(), passwordEncoder.encode(newPassword));
+            // Vô hiệu hóa tất cả các token reset password của user này
+            verifyTokenStore.remove(user.id(), VerifyTokenType.RESET_PASSWORD);
         }
+        userCache.evict(user.id());
 
-        if (token.getExpirationTime().isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("OTP expired");
-        }
-
-        user.setPassword(passwordEncoder.encode(newPassword));
-        save(user);
+        // Đăng xuất mọi phiên đang có
+        refreshTokenService.revokeAll(user.id());
+    }
 
-        // Vô hiệu hóa tất cả các token reset password của user này
-        verifyTokenRepository.deleteAllByUserAndType(user, VerifyTokenType.RESET_PASSWORD);
+    private void rehash(Long userId, String rawPassword) {
+        String upgraded;
+        try {
+            upgraded = passwordEncoder.encode(rawPassword);
+        } catch (ServiceBusyException e) {
+            // Best-effort: pool băm đang đầy thì lần đăng nhập sau băm lại, không làm hỏng login đã xác thực
+            log.debug("Skipped rehash for user {}: password hashing pool is busy", userId);
+            return;
+        }
+        userRepository.updatePassword(userId, upgraded);
+        userCache.evict(userId);
+        log.info("Rehashed password for user {} to current target cost", userId);
     }
 
-    private void createAndSendToken(User user, VerifyTokenType type) {
-        verifyTokenRepository.deleteAllByUserAndType(user, type);
-        LocalDateTime now = LocalDateTime.now();
-        String otp = otpUtils.generateOTP();
-        VerifyToken token = VerifyToken.builder()
-                .user(user)
-                .token(otp)
-                .type(type)
-                .requestedTime(now)
-                .expirationTime(now.plus(OTP_TTL))
-                .build();
-        verifyTokenRepository.save(token);
-        emailUtils.sendEmailAsync(user.getEmail(), otp, type);
+    private void createAndSendToken(Long userId, String email, String passwordHash, VerifyTokenType type) {
+        String otp;
+        if (signedOtpCodec.isEnabled(type)) {
+            // Mã ký gắn với email, loại và hash mật khẩu hiện tại: không ghi verify_token
+            otp = signedOtpCodec.issue(type, userId, email, passwordHash, Instant.now().plus(VerifyToken.OTP_TTL));
+        } else {
+            LocalDateTime now = LocalDateTime.now();
+            otp = otpUtils.generateOTP();
+            // Thay thế OTP cùng loại trước đó của user
+            verifyTokenStore.replace(new StoredToken(userId, type, otpHasher.hash(userId, type, otp),
+                    now, now.plus(VerifyToken.OTP_TTL)));
+        }
+        // Email nằm trong outbox cùng transaction, relay gửi sau khi commit
+        emailOutboxService.enqueue(email, otp, type);
     }
 
     @Override
@@ -177,6 +226,8 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userCache.evict(saved.getId());
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.repository.VerifyTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically deletes expired rows from {@code verify_token} in batches of
+ * {@code spring.app.otpSweepBatchSize}, one short transaction per batch.
+ */
+@Component
+@Slf4j
+public class VerifyTokenSweeper {
+
+    private final VerifyTokenRepository verifyTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public VerifyTokenSweeper(VerifyTokenRepository verifyTokenRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${spring.app.otpSweepBatchSize:1000}") int batchSize) {
+        this.verifyTokenRepository = verifyTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${spring.app.otpSweepCron:0 */15 * * * *}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            Integer count = transactionTemplate.execute(status ->
+                    verifyTokenRepository.deleteExpiredBatch(now, batchSize));
+            deleted = count == null ? 0 : count;
+            total += deleted;
+        } while (deleted == batchSize);
+        if (total > 0) {
+            log.info("Swept {} expired verify tokens", total);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package fpt.sep.apjf.service.impl;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import fpt.sep.apjf.service.impl.InMemoryVerifyTokenStore.Key;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads OTPs from {@link InMemoryVerifyTokenStore} and persists changes to {@code verify_token}
+ * asynchronously, so the OTP hot path does not touch Postgres.
+ * <p>
+ * Changes are coalesced per (user, type) and flushed in batches every {@code spring.app.otpWriteBehindFlushMs}.
+ * On a memory miss (e.g. after a restart or on another instance) the row is read from the database and cached.
+ * A failed flush keeps the changes pending and retries on the next run.
+ * <p>
+ * Single-instance only: the in-memory copy is per process, so a {@link #remove} on one instance is not
+ * seen by another that already cached the token, and a used reset OTP keeps working there until it
+ * expires. Changes not yet flushed are lost on a crash, although the outbox email for them is still
+ * sent. Use the {@code jpa} store when running more than one instance.
+ */
+@Slf4j
+public class WriteBehindVerifyTokenStore implements VerifyTokenStore, AutoCloseable {
+
+    private final InMemoryVerifyTokenStore memory;
+    private final JpaVerifyTokenStore jpa;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    // Thay đổi chưa ghi xuống DB, chỉ giữ thay đổi mới nhất của mỗi key
+    private final Map<Key, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    public WriteBehindVerifyTokenStore(InMemoryVerifyTokenStore memory, JpaVerifyTokenStore jpa,
+                                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                                       int batchSize) {
+        this.memory = memory;
+        this.jpa = jpa;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        Gauge.builder("otp.store.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public void replace(StoredToken token) {
+        TransactionHooks.afterCommit(() -> {
+            memory.put(token);
+            pending.put(new Key(token.userId(), token.type()), new PendingWrite(token));
+        });
+    }
+
+    @Override
+    public Optional<StoredToken> find(Long userId, VerifyTokenType type) {
+        Optional<StoredToken> cached = memory.find(userId, type);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Key key = new Key(userId, type);
+        if (pending.containsKey(key)) {
+            // Đã xóa (hoặc đã hết hạn) nhưng chưa flush: DB còn bản cũ, không được đọc lại
+            return Optional.empty();
+        }
+        Optional<StoredToken> stored = jpa.find(userId, type)
+                .filter(token -> !token.isExpired(LocalDateTime.now()));
+        stored.ifPresent(memory::put);
+        return stored;
+    }
+
+    @Override
+    public void remove(Long userId, VerifyTokenType type) {
+        TransactionHooks.afterCommit(() -> {
+            Key key = new Key(userId, type);
+            memory.delete(key);
+            pending.put(key, new PendingWrite(null));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.otpWriteBehindFlushMs:500}")
+    public void flush() {
+        while (!pending.isEmpty()) {
+            Map<Key, PendingWrite> batch = new HashMap<>();
+            for (Map.Entry<Key, PendingWrite> entry : pending.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() >= batchSize) {
+                    break;
+                }
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jpa.writeBatch(batch.keySet(),
+                        batch.values().stream().map(PendingWrite::token).filter(Objects::nonNull).toList()));
+            } catch (RuntimeException e) {
+                log.warn("Write-behind flush of {} OTP changes failed, will retry: {}", batch.size(), e.getMessage());
+                return;
+            }
+            // Chỉ bỏ các key chưa bị ghi đè trong lúc flush
+            batch.forEach(pending::remove);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        memory.close();
+    }
+
+    private record PendingWrite(StoredToken token) {
+    }
+}
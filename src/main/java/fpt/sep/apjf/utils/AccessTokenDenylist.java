@@ -0,0 +1,200 @@
+package fpt.sep.apjf.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import fpt.sep.apjf.entity.RevokedAccessToken;
+import fpt.sep.apjf.entity.UserTokenWatermark;
+import fpt.sep.apjf.repository.RevokedAccessTokenRepository;
+import fpt.sep.apjf.repository.UserTokenWatermarkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Early revocation of access tokens, checked by {@link AuthTokenFilter} on every request (cache hits
+ * included) with in-memory lookups only:
+ * <ul>
+ *     <li>denied ids: a {@code jti} (one token) or a {@code sid} (every token of a refresh session);</li>
+ *     <li>per-user watermarks: tokens whose {@code iat} is before {@code notBefore} are rejected.</li>
+ * </ul>
+ * Both are bounded Caffeine caches whose entries expire when the tokens they cover would have expired.
+ * Changes are written to {@code revoked_access_token} / {@code user_token_watermark} in the caller's
+ * transaction, reloaded at startup and pulled from other instances every
+ * {@code spring.app.tokenRevocationPollMs}.
+ */
+@Component
+@Slf4j
+public class AccessTokenDenylist {
+
+    // Chồng lấn khi poll để không sót bản ghi commit muộn hoặc lệch giờ giữa các instance
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final RevokedAccessTokenRepository revokedRepository;
+    private final UserTokenWatermarkRepository watermarkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration accessTokenTtl;
+    private final Cache<UUID, Instant> denied;
+    private final Cache<Long, Watermark> watermarks;
+    private final Counter evicted;
+    private volatile LocalDateTime lastPoll = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public AccessTokenDenylist(RevokedAccessTokenRepository revokedRepository,
+                               UserTokenWatermarkRepository watermarkRepository,
+                               TransactionTemplate transactionTemplate,
+                               JwtUtils jwtUtils,
+                               MeterRegistry meterRegistry,
+                               @Value("${spring.app.tokenDenylistMaxSize:100000}") long maxSize) {
+        this.revokedRepository = revokedRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.accessTokenTtl = jwtUtils.accessTokenTtl();
+        this.evicted = Counter.builder("auth.denylist.evicted").register(meterRegistry);
+        this.denied = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilExpiry<UUID, Instant>(expiresAt -> expiresAt))
+                .removalListener((UUID id, Instant expiresAt, RemovalCause cause) -> onRemoval(cause))
+                .build();
+        this.watermarks = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilExpiry<Long, Watermark>(Watermark::expiresAt))
+                .removalListener((Long userId, Watermark watermark, RemovalCause cause) -> onRemoval(cause))
+                .build();
+        Gauge.builder("auth.denylist.size", denied, Cache::estimatedSize).tag("kind", "id").register(meterRegistry);
+        Gauge.builder("auth.denylist.size", watermarks, Cache::estimatedSize).tag("kind", "user").register(meterRegistry);
+    }
+
+    public boolean isRevoked(JwtClaimsView claims) {
+        if (claims.tokenId() != null && denied.getIfPresent(claims.tokenId()) != null) {
+            return true;
+        }
+        if (claims.sessionId() != null && denied.getIfPresent(claims.sessionId()) != null) {
+            return true;
+        }
+        if (claims.userId() != null && claims.issuedAt() != null) {
+            Watermark watermark = watermarks.getIfPresent(claims.userId());
+            return watermark != null && claims.issuedAt().isBefore(watermark.notBefore());
+        }
+        return false;
+    }
+
+    /**
+     * Thu hồi một token ({@code jti}) hoặc một phiên ({@code sid}) tới {@code expiresAt}.
+     */
+    public void deny(UUID id, Long userId, Instant expiresAt) {
+        revokedRepository.save(RevokedAccessToken.builder()
+                .tokenId(id)
+                .userId(userId)
+                .revokedAt(LocalDateTime.now())
+                .expiresAt(toLocal(expiresAt))
+                .build());
+        denied.put(id, expiresAt);
+    }
+
+    /**
+     * Thu hồi một phiên: mọi access token mang {@code sid} này, tối đa bằng thời hạn của access token.
+     */
+    public void denySession(UUID sessionId, Long userId) {
+        deny(sessionId, userId, Instant.now().plus(accessTokenTtl));
+    }
+
+    /**
+     * Thu hồi mọi access token của user đã phát hành tới thời điểm hiện tại.
+     */
+    public void revokeAllIssuedBefore(Long userId, Instant now) {
+        // iat của JWT tính bằng giây: token phát hành trong cùng giây với mốc vẫn hợp lệ
+        Instant notBefore = now.truncatedTo(ChronoUnit.SECONDS);
+        Watermark watermark = new Watermark(notBefore, notBefore.plus(accessTokenTtl).plusSeconds(1));
+        watermarkRepository.save(UserTokenWatermark.builder()
+                .userId(userId)
+                .notBefore(toLocal(watermark.notBefore()))
+                .updatedAt(LocalDateTime.now())
+                .expiresAt(toLocal(watermark.expiresAt()))
+                .build());
+        watermarks.put(userId, watermark);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${spring.app.tokenRevocationPollMs:5000}",
+            initialDelayString = "${spring.app.tokenRevocationPollMs:5000}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = lastPoll.minus(POLL_OVERLAP);
+        for (RevokedAccessToken revoked : revokedRepository.findRevokedSince(since, now)) {
+            denied.put(revoked.getTokenId(), toInstant(revoked.getExpiresAt()));
+        }
+        for (UserTokenWatermark watermark : watermarkRepository.findUpdatedSince(since, now)) {
+            watermarks.put(watermark.getUserId(),
+                    new Watermark(toInstant(watermark.getNotBefore()), toInstant(watermark.getExpiresAt())));
+        }
+        lastPoll = now;
+    }
+
+    @Scheduled(cron = "${spring.app.tokenRevocationPurgeCron:0 45 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(status ->
+                revokedRepository.deleteExpired(now) + watermarkRepository.deleteExpired(now));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired access token revocations", deleted);
+        }
+    }
+
+    private void onRemoval(RemovalCause cause) {
+        if (cause == RemovalCause.SIZE) {
+            // Thu hồi bị quên trước hạn: cần tăng spring.app.tokenDenylistMaxSize
+            evicted.increment();
+        }
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private static Instant toInstant(LocalDateTime value) {
+        return value.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private record Watermark(Instant notBefore, Instant expiresAt) {
+    }
+
+    private static final class UntilExpiry<K, V> implements Expiry<K, V> {
+
+        private final Function<V, Instant> expiresAt;
+
+        UntilExpiry(Function<V, Instant> expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public long expireAfterCreate(K key, V value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), expiresAt.apply(value)).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
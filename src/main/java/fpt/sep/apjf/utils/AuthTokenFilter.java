@@ -1,5 +1,6 @@
 package fpt.sep.apjf.utils;
 
+import fpt.sep.apjf.utils.VerifiedTokenCache.CachedAuthentication;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,14 +9,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.Optional;
 
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -23,6 +23,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private AccessTokenDenylist accessTokenDenylist;
+
 
     private static final Logger authTokenlogger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -32,21 +38,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         authTokenlogger.debug("AuthTokenFilter called for URI: {}", request.getRequestURL());
         try {
             String jwt = extractJwtFromRequest(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-
-                // Lấy thông tin từ JWT
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
-                List<String> roles = jwtUtils.getRolesFromJwtToken(jwt);   // claim "roles" dạng List<String>
+            Optional<CachedAuthentication> cached = jwt == null ? Optional.empty() : verifiedTokenCache.get(jwt);
+            if (cached.isPresent() && accessTokenDenylist.isRevoked(cached.get().claims())) {
+                // Kiểm tra cả khi trúng cache: token có thể bị thu hồi sau khi đã được cache
+                authTokenlogger.debug("Revoked JWT for user {}", cached.get().username());
+            } else if (cached.isPresent()) {
 
-                // Chuyển đổi thành GrantedAuthority
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .toList();
+                // Token đã xác thực: lấy principal và quyền từ cache, không parse lại
+                CachedAuthentication principal = cached.get();
 
                 UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+                        new UsernamePasswordAuthenticationToken(principal.username(), null, principal.authorities());
 
-                authTokenlogger.debug("Roles from JWT: {}", roles);
+                authTokenlogger.debug("Roles from JWT: {}", principal.claims().roles());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
@@ -0,0 +1,84 @@
+package fpt.sep.apjf.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.dto.ApiResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps in-flight {@code /api/**} requests when requests run on virtual threads.
+ * <p>
+ * With platform threads the Tomcat pool ({@code server.tomcat.threads.max}) is already the limit.
+ * With {@code spring.threads.virtual.enabled=true} Tomcat accepts without bound, so this filter keeps
+ * concurrent work near what the DB pool can serve ({@code spring.app.virtualMaxConcurrentRequests})
+ * and answers 503 + Retry-After when a permit is not available within the acquire timeout.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                  @Value("${spring.app.virtualMaxConcurrentRequests:100}") int maxConcurrentRequests,
+                                  @Value("${spring.app.virtualRequestAcquireTimeout:PT2S}") Duration acquireTimeout,
+                                  MeterRegistry meterRegistry,
+                                  ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.permits = virtualThreads && maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests, true) : null;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.rejected = Counter.builder("http.concurrency.rejected").register(meterRegistry);
+        if (permits != null) {
+            Gauge.builder("http.concurrency.in_flight", permits, p -> maxConcurrentRequests - p.availablePermits())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return permits == null || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    new ApiResponseDTO(false, "Hệ thống đang bận, vui lòng thử lại sau.", "SERVICE_BUSY", null));
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
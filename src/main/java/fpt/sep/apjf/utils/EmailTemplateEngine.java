@@ -0,0 +1,172 @@
+package fpt.sep.apjf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Email templates for each {@link VerifyTokenType} and language, compiled once at startup.
+ * <p>
+ * Templates live in {@code templates/email/<type>_<lang>.html}; the first line is
+ * {@code <!-- subject: ... -->}. Placeholders {@code {{link}}}, {@code {{otp}}} and {@code {{email}}}
+ * are resolved to slot indexes at compile time, so rendering is a single pass of appends into a
+ * {@link StringBuilder} sized exactly for the result. No per-thread buffer is kept: with virtual threads
+ * a {@code ThreadLocal} would be allocated and dropped on every send anyway.
+ */
+@Component
+public class EmailTemplateEngine {
+
+    public static final Set<String> SUPPORTED_LANGUAGES = Set.of("vi", "en");
+
+    private static final Pattern SUBJECT = Pattern.compile("^<!--\\s*subject:\\s*(.*?)\\s*-->\\R?");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(\\w+)}}");
+
+    private final Map<VerifyTokenType, Map<String, CompiledTemplate>> templates = new EnumMap<>(VerifyTokenType.class);
+    private final Map<VerifyTokenType, String> linkBaseUrls = new EnumMap<>(VerifyTokenType.class);
+    private final String defaultLanguage;
+
+    public EmailTemplateEngine(@Value("${spring.app.mailVerifyUrl:http://localhost:8080/auth/verify-account}") String verifyUrl,
+                               @Value("${spring.app.mailResetUrl:http://localhost:8080/auth/reset-password}") String resetUrl,
+                               @Value("${spring.app.mailDefaultLocale:vi}") String defaultLanguage) {
+        if (!SUPPORTED_LANGUAGES.contains(defaultLanguage)) {
+            throw new IllegalArgumentException("Unsupported spring.app.mailDefaultLocale: " + defaultLanguage);
+        }
+        this.defaultLanguage = defaultLanguage;
+        for (VerifyTokenType type : VerifyTokenType.values()) {
+            Map<String, CompiledTemplate> byLanguage = new HashMap<>();
+            for (String language : SUPPORTED_LANGUAGES) {
+                byLanguage.put(language, compile(load(type, language)));
+            }
+            templates.put(type, Map.copyOf(byLanguage));
+            linkBaseUrls.put(type, (type == VerifyTokenType.RESET_PASSWORD ? resetUrl : verifyUrl) + "?email=");
+        }
+    }
+
+    /**
+     * Trả về ngôn ngữ được hỗ trợ gần nhất với {@code locale}, mặc định {@code spring.app.mailDefaultLocale}.
+     */
+    public String resolveLanguage(Locale locale) {
+        if (locale != null && SUPPORTED_LANGUAGES.contains(locale.getLanguage())) {
+            return locale.getLanguage();
+        }
+        return defaultLanguage;
+    }
+
+    public RenderedEmail render(VerifyTokenType type, String language, String email, String otp) {
+        Map<String, CompiledTemplate> byLanguage = templates.get(type);
+        CompiledTemplate template = byLanguage.getOrDefault(language, byLanguage.get(defaultLanguage));
+
+        String[] values = new String[Slot.VALUES.length];
+        values[Slot.LINK.ordinal()] = escapeHtml(linkBaseUrls.get(type)
+                + URLEncoder.encode(email, StandardCharsets.UTF_8)
+                + "&otp=" + URLEncoder.encode(otp, StandardCharsets.UTF_8));
+        values[Slot.OTP.ordinal()] = escapeHtml(otp);
+        values[Slot.EMAIL.ordinal()] = escapeHtml(email);
+
+        StringBuilder buffer = new StringBuilder(template.length(values));
+        template.renderTo(buffer, values);
+        return new RenderedEmail(template.subject(), buffer.toString());
+    }
+
+    private static String load(VerifyTokenType type, String language) {
+        String path = "templates/email/" + type.name().toLowerCase(Locale.ROOT) + "_" + language + ".html";
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Missing email template " + path, e);
+        }
+    }
+
+    static CompiledTemplate compile(String source) {
+        Matcher subjectMatcher = SUBJECT.matcher(source);
+        if (!subjectMatcher.find()) {
+            throw new IllegalStateException("Email template must start with <!-- subject: ... -->");
+        }
+        String subject = subjectMatcher.group(1);
+        String body = source.substring(subjectMatcher.end());
+
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(body);
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(body.substring(last, matcher.start()));
+            slots.add(Slot.of(matcher.group(1)));
+            last = matcher.end();
+        }
+        literals.add(body.substring(last));
+        return new CompiledTemplate(subject, literals.toArray(String[]::new), slots.toArray(Slot[]::new));
+    }
+
+    private static String escapeHtml(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    enum Slot {
+        LINK, OTP, EMAIL;
+
+        static final Slot[] VALUES = values();
+
+        static Slot of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    record CompiledTemplate(String subject, String[] literals, Slot[] slots) {
+
+        int length(String[] values) {
+            int length = literals[slots.length].length();
+            for (int i = 0; i < slots.length; i++) {
+                length += literals[i].length() + values[slots[i].ordinal()].length();
+            }
+            return length;
+        }
+
+        void renderTo(StringBuilder out, String[] values) {
+            for (int i = 0; i < slots.length; i++) {
+                out.append(literals[i]).append(values[slots[i].ordinal()]);
+            }
+            out.append(literals[slots.length]);
+        }
+    }
+
+    public record RenderedEmail(String subject, String html) {
+    }
+}
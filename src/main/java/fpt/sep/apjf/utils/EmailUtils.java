@@ -7,7 +7,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -15,61 +14,36 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class EmailUtils {
 
+    public static final String IDEMPOTENCY_HEADER = "X-Idempotency-Key";
+
     private final JavaMailSender javaMailSender;
+    private final EmailTemplateEngine emailTemplateEngine;
 
-    // Phương thức gửi email chung, nhận vào nội dung HTML đã được tạo sẵn
-    private void sendEmail(String email, String subject, String htmlContent) throws MessagingException {
+    // Tạo email HTML; việc gửi do SmtpConnectionPool (theo lô) hoặc JavaMailSender đảm nhận
+    private MimeMessage buildHtml(String email, String subject, String htmlContent, String idempotencyKey) throws MessagingException {
         MimeMessage mimeMessage = javaMailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
         helper.setTo(email);
         helper.setSubject(subject);
         helper.setText(htmlContent, true);
-        javaMailSender.send(mimeMessage);
-    }
-
-    // Phương thức tạo nội dung HTML cho OTP (để giữ lại chức năng cũ)
-    private String getHtmlContent(String email, String otp, String linkTemplate) {
-        String verifyLink = String.format(linkTemplate, email, otp);
-        return String.format("""
-                <html>
-                  <body>
-                    <p>Chào bạn,</p>
-                    <p>Vui lòng bấm vào link bên dưới:</p>
-                    <a href="%s" target="_blank">Click để thực hiện</a>
-                    <p>OTP của bạn là: <b>%s</b></p>
-                  </body>
-                </html>
-                """, verifyLink, otp);
-    }
-
-    @Async("taskExecutor")
-    public void sendEmailAsync(String email, String otp, VerifyToken.VerifyTokenType type) {
-        try {
-            switch (type) {
-                case REGISTRATION:
-                    sendOtpEmail(email, otp);
-                    break;
-                case RESET_PASSWORD:
-                    sendSetPassword(email, otp);
-                    break;
-                case VERIFY_EMAIL:
-                    sendOtpEmail(email, otp);
-                    break;
-                default:
-                    sendOtpEmail(email, otp);
-            }
-        } catch (Exception e) {
-            log.error("Error sending {} email: {}", type, e.getMessage(), e);
+        if (idempotencyKey != null) {
+            mimeMessage.setHeader(IDEMPOTENCY_HEADER, idempotencyKey);
         }
+        return mimeMessage;
     }
 
-    public void sendOtpEmail(String email, String otp) throws MessagingException {
-        String linkTemplate = "http://localhost:8080/auth/verify-account?email=%s&otp=%s";
-        sendEmail(email, "Email Verification", getHtmlContent(email, otp, linkTemplate));
+    /**
+     * Tạo email theo loại token và ngôn ngữ (vi/en) từ template đã biên dịch sẵn; relay của outbox
+     * gửi các email này theo lô.
+     */
+    public MimeMessage buildEmail(String email, String otp, VerifyToken.VerifyTokenType type, String language,
+                                  String idempotencyKey) throws MessagingException {
+        EmailTemplateEngine.RenderedEmail rendered = emailTemplateEngine.render(type, language, email, otp);
+        return buildHtml(email, rendered.subject(), rendered.html(), idempotencyKey);
     }
 
-    public void sendSetPassword(String email, String otp) throws MessagingException {
-        String linkTemplate = "http://localhost:8080/auth/reset-password?email=%s&otp=%s";
-        sendEmail(email, "Reset Password", getHtmlContent(email, otp, linkTemplate));
+    public void sendEmail(String email, String otp, VerifyToken.VerifyTokenType type, String language,
+                          String idempotencyKey) throws MessagingException {
+        javaMailSender.send(buildEmail(email, otp, type, language, idempotencyKey));
     }
 }
@@ -0,0 +1,132 @@
+package fpt.sep.apjf.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel (Varghese &amp; Lauck) for coarse expiry of many short-lived entries.
+ * <p>
+ * {@link #schedule} and {@link Timeout#cancel} are O(1) and lock-free; a single daemon thread advances
+ * one bucket per tick and hands due values to the expiry callback. Deadlines are rounded up to the tick,
+ * so callers that need exact expiry must still check the deadline on read.
+ */
+@Slf4j
+public class HashedTimingWheel<T> implements AutoCloseable {
+
+    private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Queue<Timeout<T>>[] wheel;
+    private final int mask;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<T> onExpire;
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    // Chỉ thread worker đọc/ghi
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, Duration tickDuration, int wheelSize, Consumer<T> onExpire) {
+        if (tickDuration.isNegative() || tickDuration.isZero()) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = tickDuration.toNanos();
+        this.wheel = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.onExpire = onExpire;
+        this.startNanos = System.nanoTime();
+        this.worker = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+        this.worker.start();
+    }
+
+    public Timeout<T> schedule(T value, Duration delay) {
+        Timeout<T> timeout = new Timeout<>(value, System.nanoTime() + Math.max(0, delay.toNanos()));
+        pending.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (running) {
+            long sleep = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            transferPending();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout<T> timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.cancelled) {
+                continue;
+            }
+            // Làm tròn lên tick kế tiếp; deadline đã qua thì rơi vào bucket hiện tại
+            long ticks = Math.max(tick, -Math.floorDiv(-(timeout.deadlineNanos - startNanos), tickNanos) - 1);
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout<T>> bucket) {
+        for (int i = bucket.size(); i > 0; i--) {
+            Timeout<T> timeout = bucket.poll();
+            if (timeout.cancelled) {
+                continue;
+            }
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                bucket.add(timeout);
+                continue;
+            }
+            try {
+                onExpire.accept(timeout.value);
+            } catch (RuntimeException e) {
+                log.warn("Timing wheel expiry callback failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    public static final class Timeout<T> {
+
+        private final T value;
+        private final long deadlineNanos;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(T value, long deadlineNanos) {
+            this.value = value;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Hủy hẹn giờ; entry bị bỏ qua khi bucket của nó tới lượt.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package fpt.sep.apjf.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * An HmacSHA256 key initialised once; {@link #newMac()} clones that prototype, which skips the provider
+ * lookup and key setup of {@code Mac.getInstance} + {@code init}.
+ * <p>
+ * Used instead of a {@code ThreadLocal<Mac>}: with {@code spring.threads.virtual.enabled=true} every request
+ * runs on a fresh virtual thread, so a per-thread cache is never reused and only leaves a {@link Mac}
+ * behind on each call. Cloning costs the same on platform and virtual threads.
+ */
+public final class HmacSha256 {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+
+    public HmacSha256(byte[] key) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        Mac mac = newInstance();
+        try {
+            mac.clone();
+        } catch (CloneNotSupportedException e) {
+            // Provider không hỗ trợ clone: init mỗi lần
+            mac = null;
+        }
+        this.prototype = mac;
+    }
+
+    /**
+     * Một {@link Mac} riêng cho người gọi, đã gắn khóa, không dùng chung giữa các thread.
+     */
+    public Mac newMac() {
+        if (prototype != null) {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                // Đã kiểm tra ở constructor
+            }
+        }
+        return newInstance();
+    }
+
+    private Mac newInstance() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fpt.sep.apjf.utils;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-process sliding-window counters. Keys are spread over a fixed number of stripes, each a plain
+ * {@link HashMap} guarded by its own monitor, so unrelated keys rarely contend and no per-key lock
+ * objects are allocated. Idle counters are dropped by {@link #evictIdle()}.
+ */
+public class InMemoryRateLimiterBackend implements RateLimiterBackend {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Clock clock;
+
+    public InMemoryRateLimiterBackend(Clock clock) {
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public Decision tryAcquire(String key, int limit, Duration window) {
+        long now = clock.millis();
+        long windowMillis = window.toMillis();
+        long windowIndex = now / windowMillis;
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (stripe) {
+            Counter counter = stripe.counters.computeIfAbsent(key, k -> new Counter());
+            counter.roll(windowIndex, windowMillis);
+            if (RateLimiterBackend.estimate(counter.previous, counter.current, now, windowMillis) + 1 > limit) {
+                return new Decision(false, RateLimiterBackend.retryAfterSeconds(
+                        counter.previous, counter.current, limit, now, windowMillis));
+            }
+            counter.current++;
+            return Decision.ALLOWED;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.rateLimitEvictMs:60000}")
+    public void evictIdle() {
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                // Hai cửa sổ không có lượt nào thì counter không còn ảnh hưởng
+                stripe.counters.values().removeIf(counter -> now - counter.windowStartMillis >= 2 * counter.windowMillis);
+            }
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<String, Counter> counters = new HashMap<>();
+    }
+
+    private static final class Counter {
+        private long windowIndex = Long.MIN_VALUE;
+        private long windowMillis;
+        private long windowStartMillis;
+        private long previous;
+        private long current;
+
+        void roll(long index, long millis) {
+            if (index == windowIndex) {
+                return;
+            }
+            previous = index == windowIndex + 1 ? current : 0;
+            current = 0;
+            windowIndex = index;
+            windowMillis = millis;
+            windowStartMillis = index * millis;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fpt.sep.apjf.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Sliding-window counters in the {@code rate_limit_counter} table, so every node sees the same limits.
+ * One atomic upsert ({@code INSERT ... ON CONFLICT ... RETURNING}, PostgreSQL) increments the current
+ * window; the previous window is read in the same round trip. A hit that ends up over the limit is
+ * still counted, which only makes the limiter slightly stricter under a burst.
+ */
+@Slf4j
+public class JdbcRateLimiterBackend implements RateLimiterBackend {
+
+    private static final String UPSERT = """
+            WITH cur AS (
+                INSERT INTO rate_limit_counter (bucket_key, hits, expires_at) VALUES (?, 1, ?)
+                ON CONFLICT (bucket_key) DO UPDATE SET hits = rate_limit_counter.hits + 1
+                RETURNING hits
+            )
+            SELECT (SELECT hits FROM cur) AS current,
+                   COALESCE((SELECT hits FROM rate_limit_counter WHERE bucket_key = ?), 0) AS previous
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    public JdbcRateLimiterBackend(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    @Override
+    public Decision tryAcquire(String key, int limit, Duration window) {
+        long now = clock.millis();
+        long windowMillis = window.toMillis();
+        long windowIndex = now / windowMillis;
+        Timestamp expiresAt = Timestamp.from(Instant.ofEpochMilli((windowIndex + 2) * windowMillis));
+        List<long[]> rows = jdbcTemplate.query(UPSERT,
+                (rs, rowNum) -> new long[]{rs.getLong("previous"), rs.getLong("current")},
+                key + "#" + windowIndex, expiresAt, key + "#" + (windowIndex - 1));
+        long previous = rows.get(0)[0];
+        // Lượt hiện tại đã được cộng; so sánh phần trước đó với hạn mức
+        long current = rows.get(0)[1] - 1;
+        if (RateLimiterBackend.estimate(previous, current, now, windowMillis) + 1 > limit) {
+            return new Decision(false, RateLimiterBackend.retryAfterSeconds(previous, current, limit, now, windowMillis));
+        }
+        return Decision.ALLOWED;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.rateLimitEvictMs:60000}")
+    public void evictIdle() {
+        int deleted = jdbcTemplate.update("DELETE FROM rate_limit_counter WHERE expires_at < ?",
+                Timestamp.from(clock.instant()));
+        if (deleted > 0) {
+            log.debug("Deleted {} expired rate limit counters", deleted);
+        }
+    }
+}
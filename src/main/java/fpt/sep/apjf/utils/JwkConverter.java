@@ -0,0 +1,68 @@
+package fpt.sep.apjf.utils;
+
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converts JDK public keys to JWK maps (RFC 7517/7518, RFC 8037 for Ed25519/Ed448).
+ */
+final class JwkConverter {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private JwkConverter() {
+    }
+
+    static Map<String, Object> toJwk(String kid, PublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (publicKey instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", rsaAlgorithm(rsa.getModulus().bitLength()));
+            jwk.put("n", BASE64_URL.encodeToString(unsigned(rsa.getModulus())));
+            jwk.put("e", BASE64_URL.encodeToString(unsigned(rsa.getPublicExponent())));
+        } else if (publicKey instanceof EdECPublicKey edec) {
+            String curve = edec.getParams().getName();
+            int rawLength = "Ed448".equalsIgnoreCase(curve) ? 57 : 32;
+            byte[] encoded = edec.getEncoded();
+            // SubjectPublicKeyInfo (X.509) kết thúc bằng khóa thô
+            byte[] raw = Arrays.copyOfRange(encoded, encoded.length - rawLength, encoded.length);
+            jwk.put("kty", "OKP");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", "EdDSA");
+            jwk.put("crv", "Ed448".equalsIgnoreCase(curve) ? "Ed448" : "Ed25519");
+            jwk.put("x", BASE64_URL.encodeToString(raw));
+        } else {
+            throw new IllegalArgumentException("Unsupported JWT signing key type: " + publicKey.getAlgorithm());
+        }
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    // Cùng quy tắc jjwt dùng khi tự chọn thuật toán cho khóa RSA
+    private static String rsaAlgorithm(int modulusBits) {
+        if (modulusBits >= 4096) {
+            return "RS512";
+        }
+        if (modulusBits >= 3072) {
+            return "RS384";
+        }
+        return "RS256";
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            return Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return bytes;
+    }
+}
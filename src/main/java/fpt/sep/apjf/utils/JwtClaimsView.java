@@ -0,0 +1,25 @@
+package fpt.sep.apjf.utils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable view of an access token that has already been parsed and signature-verified.
+ * {@code tokenId}, {@code userId} and {@code sessionId} are null for tokens issued without them.
+ */
+public record JwtClaimsView(String subject, List<String> roles, Instant issuedAt, Instant expiresAt,
+                            UUID tokenId, Long userId, UUID sessionId) {
+
+    public JwtClaimsView {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public JwtClaimsView(String subject, List<String> roles, Instant issuedAt, Instant expiresAt) {
+        this(subject, roles, issuedAt, expiresAt, null, null, null);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
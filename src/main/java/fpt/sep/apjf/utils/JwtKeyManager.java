@@ -0,0 +1,319 @@
+package fpt.sep.apjf.utils;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the JWT signing key and a shared, thread-safe {@link JwtParser}.
+ * <p>
+ * Two modes are supported:
+ * <ul>
+ *     <li>HMAC (default): the key is derived from {@code spring.app.jwtSecret}.</li>
+ *     <li>Asymmetric: when {@code spring.app.jwtKeystore} points at a PKCS12 file, every key entry
+ *     (RSA or Ed25519) is loaded, the alias becomes the {@code kid} and the newest entry (or
+ *     {@code spring.app.jwtKeyAlias}) signs. Public keys are published through
+ *     {@link #publicJwks()} so resource servers can verify offline.</li>
+ * </ul>
+ * A {@code jwtSecret} configured next to a keystore is only kept as a verifier for one access-token
+ * lifetime after startup, for HMAC tokens issued before the switch.
+ * <p>
+ * Key material is an immutable snapshot swapped atomically, so rotation never needs a restart and
+ * tokens signed by a retired key stay verifiable while that key is still known. When a swap drops a
+ * verification key, the {@link #onKeysRemoved} listeners run so already-verified tokens are not served
+ * from a cache any more.
+ */
+@Component
+public class JwtKeyManager {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyManager.class);
+
+    private final String keystorePath;
+    private final char[] keystorePassword;
+    private final String keyAlias;
+
+    private final List<Runnable> keyRemovalListeners = new CopyOnWriteArrayList<>();
+
+    private volatile KeyMaterial current;
+    private volatile long keystoreLastModified;
+    private volatile Instant legacyHmacUntil;
+
+    public JwtKeyManager(String jwtSecret) {
+        this(jwtSecret, null, null, null, 0);
+    }
+
+    @Autowired
+    public JwtKeyManager(@Value("${spring.app.jwtSecret:}") String jwtSecret,
+                         @Value("${spring.app.jwtKeystore:}") String keystorePath,
+                         @Value("${spring.app.jwtKeystorePassword:}") String keystorePassword,
+                         @Value("${spring.app.jwtKeyAlias:}") String keyAlias,
+                         @Value("${spring.app.jwtExpirationMs:900000}") long accessTokenTtlMs) {
+        this.keystorePath = keystorePath;
+        this.keystorePassword = keystorePassword == null ? new char[0] : keystorePassword.toCharArray();
+        this.keyAlias = keyAlias;
+
+        SecretKey hmacKey = StringUtils.hasText(jwtSecret) ? decode(jwtSecret) : null;
+        if (StringUtils.hasText(keystorePath)) {
+            if (hmacKey != null) {
+                // Token HMAC phát hành trước khi chuyển sang keystore chỉ còn sống tối đa một access token TTL
+                this.legacyHmacUntil = Instant.now().plusMillis(accessTokenTtlMs);
+                logger.warn("JWT keystore in use: legacy HMAC key accepted for verification until {}, "
+                        + "unset spring.app.jwtSecret once it has passed", legacyHmacUntil);
+            }
+            this.current = loadKeystore(hmacKey);
+        } else if (hmacKey != null) {
+            this.current = KeyMaterial.create(keyIdOf(hmacKey), hmacKey, Map.of(keyIdOf(hmacKey), hmacKey), Map.of());
+        } else {
+            throw new IllegalStateException("Either spring.app.jwtSecret or spring.app.jwtKeystore must be configured");
+        }
+    }
+
+    /**
+     * Gắn header {@code kid} và ký bằng khóa đang hoạt động. Thuật toán do loại khóa quyết định
+     * (HS256/384/512, RS256 với RSA 2048, EdDSA với Ed25519).
+     */
+    public JwtBuilder signWith(JwtBuilder builder) {
+        KeyMaterial material = current;
+        return builder.header().keyId(material.keyId()).and()
+                .signWith(material.signingKey());
+    }
+
+    public String keyId() {
+        return current.keyId();
+    }
+
+    public JwtParser parser() {
+        return current.parser();
+    }
+
+    public Set<String> verificationKeyIds() {
+        return current.verificationKeys().keySet();
+    }
+
+    /**
+     * Public keys in JWK form, ready to be served as a JWK Set. Empty in HMAC mode.
+     */
+    public List<Map<String, Object>> publicJwks() {
+        return current.publicJwks();
+    }
+
+    public boolean isAsymmetric() {
+        return !current.publicJwks().isEmpty();
+    }
+
+    /**
+     * Gọi {@code listener} mỗi khi một khóa xác thực bị bỏ (xoay khóa, xóa khỏi keystore).
+     */
+    public void onKeysRemoved(Runnable listener) {
+        keyRemovalListeners.add(listener);
+    }
+
+    /**
+     * Thay khóa HMAC mà không cần khởi động lại. Token ký bằng khóa cũ vẫn được chấp nhận.
+     */
+    public synchronized void rotate(String newSecret) {
+        if (StringUtils.hasText(keystorePath)) {
+            throw new IllegalStateException("Keys are managed by the keystore; add an entry and call reload()");
+        }
+        SecretKey newKey = decode(newSecret);
+        KeyMaterial previous = current;
+        String keyId = keyIdOf(newKey);
+        if (previous.keyId().equals(keyId)) {
+            return;
+        }
+        // Chỉ giữ một khóa cũ: đủ cho các token còn hạn sau một lần xoay khóa
+        Map<String, Key> keys = new LinkedHashMap<>();
+        keys.put(keyId, newKey);
+        keys.put(previous.keyId(), previous.signingKey());
+        replace(KeyMaterial.create(keyId, newKey, keys, Map.of()));
+        logger.info("JWT signing key rotated: {} -> {}", previous.keyId(), keyId);
+    }
+
+    /**
+     * Đọc lại keystore (ví dụ sau khi thêm khóa mới bằng keytool).
+     */
+    public synchronized void reload() {
+        if (!StringUtils.hasText(keystorePath)) {
+            return;
+        }
+        String previousKid = current.keyId();
+        replace(loadKeystore(legacyHmacKey()));
+        logger.info("JWT keystore reloaded: active kid {} -> {}, known kids {}",
+                previousKid, current.keyId(), current.verificationKeys().keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.jwtKeystoreReloadMs:60000}")
+    public void reloadIfChanged() {
+        if (!StringUtils.hasText(keystorePath)) {
+            return;
+        }
+        try {
+            long lastModified = Files.getLastModifiedTime(Path.of(keystorePath)).toMillis();
+            if (lastModified != keystoreLastModified || legacyHmacExpired()) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Cannot reload JWT keystore {}: {}", keystorePath, e.getMessage());
+        }
+    }
+
+    private void replace(KeyMaterial next) {
+        Set<String> removed = new HashSet<>(current.verificationKeys().keySet());
+        removed.removeAll(next.verificationKeys().keySet());
+        current = next;
+        if (!removed.isEmpty()) {
+            // Token đã xác thực bằng khóa bị bỏ không được dùng tiếp từ cache
+            logger.info("JWT verification keys removed: {}", removed);
+            keyRemovalListeners.forEach(Runnable::run);
+        }
+    }
+
+    private KeyMaterial loadKeystore(SecretKey hmacKey) {
+        Path path = Path.of(keystorePath);
+        try (InputStream in = Files.newInputStream(path)) {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, keystorePassword);
+
+            Map<String, Key> verificationKeys = new LinkedHashMap<>();
+            Map<String, PrivateKey> privateKeys = new LinkedHashMap<>();
+            Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+            String newestAlias = null;
+            Date newestDate = null;
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (!keyStore.isKeyEntry(alias) || !(keyStore.getKey(alias, keystorePassword) instanceof PrivateKey privateKey)) {
+                    continue;
+                }
+                Certificate certificate = keyStore.getCertificate(alias);
+                if (certificate == null) {
+                    continue;
+                }
+                privateKeys.put(alias, privateKey);
+                publicKeys.put(alias, certificate.getPublicKey());
+                verificationKeys.put(alias, certificate.getPublicKey());
+                Date created = keyStore.getCreationDate(alias);
+                if (newestDate == null || (created != null && created.after(newestDate))) {
+                    newestAlias = alias;
+                    newestDate = created;
+                }
+            }
+            String activeAlias = StringUtils.hasText(keyAlias) ? keyAlias : newestAlias;
+            if (activeAlias == null || !privateKeys.containsKey(activeAlias)) {
+                throw new IllegalStateException("No usable signing key '" + activeAlias + "' in " + keystorePath);
+            }
+            if (hmacKey != null) {
+                verificationKeys.putIfAbsent(keyIdOf(hmacKey), hmacKey);
+            }
+            keystoreLastModified = lastModified;
+            return KeyMaterial.create(activeAlias, privateKeys.get(activeAlias), verificationKeys, publicKeys);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load JWT keystore " + keystorePath, e);
+        }
+    }
+
+    private SecretKey legacyHmacKey() {
+        Instant until = legacyHmacUntil;
+        if (until == null || !Instant.now().isBefore(until)) {
+            legacyHmacUntil = null;
+            return null;
+        }
+        return hmacKeyOf(current);
+    }
+
+    private boolean legacyHmacExpired() {
+        Instant until = legacyHmacUntil;
+        return until != null && !Instant.now().isBefore(until);
+    }
+
+    private static SecretKey hmacKeyOf(KeyMaterial material) {
+        for (Key key : material.verificationKeys().values()) {
+            if (key instanceof SecretKey secretKey) {
+                return secretKey;
+            }
+        }
+        return null;
+    }
+
+    private static SecretKey decode(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    static String keyIdOf(Key key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getEncoded());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record KeyMaterial(String keyId, Key signingKey, Map<String, Key> verificationKeys,
+                               List<Map<String, Object>> publicJwks, JwtParser parser) {
+
+        static KeyMaterial create(String keyId, Key signingKey, Map<String, Key> keys, Map<String, PublicKey> publicKeys) {
+            Map<String, Key> verificationKeys = Map.copyOf(keys);
+            List<Map<String, Object>> jwks = new ArrayList<>();
+            publicKeys.forEach((kid, publicKey) -> jwks.add(JwkConverter.toJwk(kid, publicKey)));
+
+            JwtParser parser = Jwts.parser()
+                    .keyLocator(new LocatorAdapter<Key>() {
+                        @Override
+                        protected Key locate(JwsHeader header) {
+                            String kid = header.getKeyId();
+                            // Token phát hành trước khi có "kid" được ký bằng khóa HMAC
+                            return kid == null ? hmacKeyOrSigningKey(verificationKeys, signingKey) : verificationKeys.get(kid);
+                        }
+                    })
+                    .build();
+            return new KeyMaterial(keyId, signingKey, verificationKeys, List.copyOf(jwks), parser);
+        }
+
+        private static Key hmacKeyOrSigningKey(Map<String, Key> verificationKeys, Key signingKey) {
+            if (signingKey instanceof SecretKey) {
+                return signingKey;
+            }
+            for (Key key : verificationKeys.values()) {
+                if (key instanceof SecretKey) {
+                    return key;
+                }
+            }
+            return null;
+        }
+    }
+}
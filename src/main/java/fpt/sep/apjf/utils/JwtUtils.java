@@ -1,34 +1,76 @@
 package fpt.sep.apjf.utils;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${spring.app.jwtSecret}")
-    private String jwtSecret;
+    static final String ROLES_CLAIM = "roles";
+    // Bitset role dạng rút gọn, xem RoleRegistry
+    static final String ROLE_BITS_CLAIM = "rb";
+    // Id user và id phiên (refresh token family), dùng cho thu hồi token
+    static final String USER_ID_CLAIM = "uid";
+    static final String SESSION_ID_CLAIM = "sid";
 
-    @Value("${spring.app.jwtExpirationMs}")
-    private int jwtExpirationMs;
+    private final JwtKeyManager keyManager;
+
+    private final RoleRegistry roleRegistry;
+
+    private final int jwtExpirationMs;
+
+    private final boolean compactRoles;
+
+    public JwtUtils(JwtKeyManager keyManager, int jwtExpirationMs) {
+        this(keyManager, RoleRegistry.of(), jwtExpirationMs, false);
+    }
+
+    @Autowired
+    public JwtUtils(JwtKeyManager keyManager,
+                    RoleRegistry roleRegistry,
+                    @Value("${spring.app.jwtExpirationMs}") int jwtExpirationMs,
+                    @Value("${spring.app.jwtCompactRoles:false}") boolean compactRoles) {
+        this.keyManager = keyManager;
+        this.roleRegistry = roleRegistry;
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.compactRoles = compactRoles;
+    }
+
+    public JwtKeyManager keyManager() {
+        return keyManager;
+    }
+
+    public RoleRegistry roleRegistry() {
+        return roleRegistry;
+    }
+
+    public Duration accessTokenTtl() {
+        return Duration.ofMillis(jwtExpirationMs);
+    }
 
     public String getJwtFromHeader(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
@@ -40,54 +82,120 @@ public class JwtUtils {
     }
 
     public String generateTokenFromUsername(UserDetails userDetails) {
+        return generateToken(userDetails, null, null);
+    }
+
+    /**
+     * Access token có {@code jti} ngẫu nhiên, kèm {@code uid} và {@code sid} nếu có, để thu hồi được
+     * từng token, từng phiên hoặc mọi token của user.
+     */
+    public String generateToken(UserDetails userDetails, Long userId, UUID sessionId) {
         String username = userDetails.getUsername();
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.toList());
+                .toList();
 
-        return Jwts.builder()
+        // JwtBuilder không thread-safe nên vẫn tạo mới mỗi lần, chỉ khóa là dùng lại
+        long now = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
-                .claim("roles", roles)                     // embed roles claim
-                .issuedAt(new Date())
-                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key())
-                .compact();
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + jwtExpirationMs));
+        OptionalLong roleBits = compactRoles ? roleRegistry.encode(roles) : OptionalLong.empty();
+        if (roleBits.isPresent()) {
+            builder.claim(ROLE_BITS_CLAIM, roleBits.getAsLong());
+        } else {
+            builder.claim(ROLES_CLAIM, roles);                      // embed roles claim
+        }
+        if (userId != null) {
+            builder.claim(USER_ID_CLAIM, userId);
+        }
+        if (sessionId != null) {
+            builder.claim(SESSION_ID_CLAIM, sessionId.toString());
+        }
+        return keyManager.signWith(builder).compact();
     }
 
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parser().verifyWith(key())
-                .build()
+        return keyManager.parser()
                 .parseSignedClaims(token)
                 .getPayload()
                 .getSubject();
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Role của token, đọc được cả claim {@code roles} lẫn {@code rb} (jwtCompactRoles).
+     */
     public List<String> getRolesFromJwtToken(String token) {
-        return Jwts.parser().verifyWith(key())
-                .build()
+        return toView(keyManager.parser()
                 .parseSignedClaims(token)
-                .getPayload()
-                .get("roles", List.class);
-    }
-
-    private SecretKey key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+                .getPayload())
+                .roles();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Parse và kiểm tra chữ ký đúng một lần, trả về claims đã được xác thực.
+     */
+    public Optional<JwtClaimsView> parseToken(String authToken) {
         try {
-            Jwts.parser().verifyWith(key()).build().parseSignedClaims(authToken);
-            return true;
+            return Optional.of(toView(keyManager.parser().parseSignedClaims(authToken).getPayload()));
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("Expired JWT signature: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("Unsupported JWT signature: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("Empty JWT claims string: {}", e.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return parseToken(authToken).isPresent();
+    }
+
+    private JwtClaimsView toView(Claims claims) {
+        List<String> roles;
+        if (claims.get(ROLE_BITS_CLAIM) instanceof Number bits) {
+            roles = roleRegistry.decode(bits.longValue()).roles();
+        } else {
+            roles = new ArrayList<>();
+            if (claims.get(ROLES_CLAIM) instanceof List<?> rawRoles) {
+                for (Object role : rawRoles) {
+                    if (role instanceof String name) {
+                        roles.add(name);
+                    }
+                }
+            }
+            // Dùng chung danh sách bất biến cho các token cùng tập role
+            roles = roleRegistry.roleSet(roles).roles();
+        }
+        return new JwtClaimsView(
+                claims.getSubject(),
+                roles,
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()),
+                toUuid(claims.getId()),
+                claims.get(USER_ID_CLAIM) instanceof Number userId ? userId.longValue() : null,
+                toUuid(claims.get(SESSION_ID_CLAIM, String.class)));
+    }
+
+    private static UUID toUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
     }
 }
@@ -0,0 +1,49 @@
+package fpt.sep.apjf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Keyed digest of an OTP, so {@code verify_token} never holds the code itself.
+ * <p>
+ * {@code HMAC-SHA256(spring.app.otpHmacKey, userId || type || otp)}: binding the user and token type
+ * means a digest copied to another row does not verify. Comparison is constant-time. The key is
+ * required: digests are persisted, so every instance must share it across restarts.
+ */
+@Component
+public class OtpHasher {
+
+    public static final int HASH_LENGTH = 32;
+
+    private final HmacSha256 hmac;
+
+    public OtpHasher(@Value("${spring.app.otpHmacKey:}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("spring.app.otpHmacKey must be configured");
+        }
+        this.hmac = new HmacSha256(Base64.getDecoder().decode(secret));
+    }
+
+    public byte[] hash(Long userId, VerifyTokenType type, String otp) {
+        Mac mac = hmac.newMac();
+        mac.update(ByteBuffer.allocate(Long.BYTES).putLong(userId).array());
+        mac.update(type.name().getBytes(StandardCharsets.US_ASCII));
+        mac.update((byte) 0);
+        mac.update(otp.getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal();
+    }
+
+    public boolean matches(byte[] expectedHash, Long userId, VerifyTokenType type, String otp) {
+        if (expectedHash == null || otp == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expectedHash, hash(userId, type, otp));
+    }
+}
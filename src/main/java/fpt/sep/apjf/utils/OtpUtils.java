@@ -1,20 +1,102 @@
 package fpt.sep.apjf.utils;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Generates and checks OTP codes.
+ * <p>
+ * One {@link SecureRandom} is shared by the whole application (seeded once, non-blocking afterwards).
+ * When {@code spring.app.otpPoolSize > 0} codes are pre-generated into a lock-free
+ * {@link MpmcRingBuffer} by a background thread, so request threads only pop a ready code and never
+ * contend on the generator; an empty pool falls back to generating inline.
+ */
 @Component
-public class OtpUtils {
+@Slf4j
+public class OtpUtils implements DisposableBean {
+
+    private final SecureRandom random = new SecureRandom();
+    private final char[] alphabet;
+    private final int length;
+    private final MpmcRingBuffer<String> pool;
+    private final int refillThreshold;
+    private final Thread refiller;
+    private volatile boolean running = true;
+
+    public OtpUtils(@Value("${spring.app.otpLength:6}") int length,
+                    @Value("${spring.app.otpAlphabet:0123456789}") String alphabet,
+                    @Value("${spring.app.otpPoolSize:1024}") int poolSize) {
+        if (length < 4 || length > 32) {
+            throw new IllegalArgumentException("spring.app.otpLength must be between 4 and 32");
+        }
+        if (alphabet.length() < 2 || alphabet.chars().distinct().count() != alphabet.length()) {
+            throw new IllegalArgumentException("spring.app.otpAlphabet must contain at least 2 distinct characters");
+        }
+        this.length = length;
+        this.alphabet = alphabet.toCharArray();
+        if (poolSize > 0) {
+            this.pool = new MpmcRingBuffer<>(poolSize);
+            this.refillThreshold = pool.capacity() / 2;
+            this.refiller = Thread.ofPlatform().name("otp-refill").daemon().start(this::refill);
+        } else {
+            this.pool = null;
+            this.refillThreshold = 0;
+            this.refiller = null;
+        }
+    }
 
     public String generateOTP() {
-        return String.valueOf(100000 + new SecureRandom().nextInt(900000));
+        if (pool == null) {
+            return newCode();
+        }
+        String code = pool.poll();
+        if (pool.size() < refillThreshold) {
+            LockSupport.unpark(refiller);
+        }
+        return code != null ? code : newCode();
     }
 
+    /**
+     * So sánh thời gian hằng (không dừng sớm ở ký tự sai đầu tiên).
+     */
     public boolean validateOTP(String storedOTP, String providedOTP) {
         if (storedOTP == null || providedOTP == null) {
             return false;
         }
-        return storedOTP.equals(providedOTP);
+        return MessageDigest.isEqual(storedOTP.getBytes(StandardCharsets.UTF_8),
+                providedOTP.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String newCode() {
+        char[] code = new char[length];
+        for (int i = 0; i < length; i++) {
+            // nextInt(bound) không bị lệch phân phối như random % bound
+            code[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return new String(code);
+    }
+
+    private void refill() {
+        while (running) {
+            while (running && pool.size() < pool.capacity() && pool.offer(newCode())) {
+                // lấp đầy buffer
+            }
+            LockSupport.park(this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (refiller != null) {
+            LockSupport.unpark(refiller);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package fpt.sep.apjf.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Builds the application {@link PasswordEncoder}: a {@link DelegatingPasswordEncoder} that can verify
+ * both bcrypt and Argon2 hashes and encodes new ones with {@code spring.app.passwordHashAlgorithm}.
+ * <p>
+ * The cost of every hash is stored in the hash itself ({@code {bcrypt}$2a$12$...},
+ * {@code {argon2}$argon2id$v=19$m=19456,t=2,p=1$...}). At startup the target cost is calibrated so a
+ * single hash takes about {@code spring.app.passwordHashBudget}; hashes below the target (including
+ * legacy hashes without an {@code {id}} prefix) report {@code upgradeEncoding == true} and are
+ * rehashed on the next successful login.
+ */
+@Component
+public class PasswordHashCalibrator {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashCalibrator.class);
+
+    static final String BCRYPT = "bcrypt";
+    static final String ARGON2 = "argon2";
+
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+    // OWASP: Argon2id m=19 MiB, t=2, p=1 là mức tối thiểu
+    private static final int ARGON2_MEMORY_KIB = 19 * 1024;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 10;
+    private static final String SAMPLE_PASSWORD = "calibration-Passw0rd!";
+
+    private final String algorithm;
+    private final Duration budget;
+    private final int minBcryptStrength;
+    private final boolean calibrate;
+
+    public PasswordHashCalibrator(@Value("${spring.app.passwordHashAlgorithm:bcrypt}") String algorithm,
+                                  @Value("${spring.app.passwordHashBudget:PT0.25S}") Duration budget,
+                                  @Value("${spring.app.passwordHashMinBcryptStrength:10}") int minBcryptStrength,
+                                  @Value("${spring.app.passwordHashCalibrate:true}") boolean calibrate) {
+        if (!BCRYPT.equals(algorithm) && !ARGON2.equals(algorithm)) {
+            throw new IllegalArgumentException("Unsupported spring.app.passwordHashAlgorithm: " + algorithm);
+        }
+        this.algorithm = algorithm;
+        this.budget = budget;
+        this.minBcryptStrength = minBcryptStrength;
+        this.calibrate = calibrate;
+    }
+
+    public PasswordEncoder buildEncoder() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(
+                BCRYPT.equals(algorithm) ? calibrateBcrypt() : minBcryptStrength);
+        Argon2PasswordEncoder argon2 = ARGON2.equals(algorithm)
+                ? calibrateArgon2()
+                : argon2(MIN_ARGON2_ITERATIONS);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, Map.of(
+                BCRYPT, bcrypt,
+                ARGON2, argon2));
+        // Hash cũ trong DB không có tiền tố {bcrypt}
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    private int calibrateBcrypt() {
+        if (!calibrate) {
+            return minBcryptStrength;
+        }
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minBcryptStrength);
+        long nanos = measure(probe);
+        int strength = minBcryptStrength;
+        // Mỗi bậc strength tăng gấp đôi thời gian hash
+        while (strength < MAX_BCRYPT_STRENGTH && nanos * 2 <= budget.toNanos()) {
+            nanos *= 2;
+            strength++;
+        }
+        logger.info("Password hashing: bcrypt strength {} (~{} ms, budget {} ms)",
+                strength, nanos / 1_000_000, budget.toMillis());
+        return strength;
+    }
+
+    private Argon2PasswordEncoder calibrateArgon2() {
+        if (!calibrate) {
+            return argon2(MIN_ARGON2_ITERATIONS);
+        }
+        long nanos = measure(argon2(MIN_ARGON2_ITERATIONS));
+        long perIteration = Math.max(1, nanos / MIN_ARGON2_ITERATIONS);
+        int iterations = (int) Math.max(MIN_ARGON2_ITERATIONS,
+                Math.min(MAX_ARGON2_ITERATIONS, budget.toNanos() / perIteration));
+        logger.info("Password hashing: argon2id m={}KiB t={} p=1 (~{} ms, budget {} ms)",
+                ARGON2_MEMORY_KIB, iterations, perIteration * iterations / 1_000_000, budget.toMillis());
+        return argon2(iterations);
+    }
+
+    private static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY_KIB, iterations);
+    }
+
+    private static long measure(PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,165 @@
+package fpt.sep.apjf.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.dto.ApiResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Throttles the unauthenticated auth endpoints ({@code spring.app.rateLimitPaths}) before any password
+ * hashing or database work happens: each POST counts against the client IP and, when the request names
+ * one, against the email address (JSON body field or {@code email} parameter). Over the limit the
+ * request is answered with 429 + Retry-After. Counters live in a {@link RateLimiterBackend}.
+ * Service-to-service endpoints ({@code spring.app.rateLimitServicePaths}) only count against the IP, with
+ * their own limit, and their body is never read.
+ * <p>
+ * JSON bodies are buffered only up to 8 KiB. A larger declared {@code Content-Length} is not read and
+ * only the IP limit applies; a body without one that runs past the limit is refused with 413.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final RateLimiterBackend backend;
+    private final Set<String> paths;
+    private final Set<String> servicePaths;
+    private final int perIp;
+    private final int perEmail;
+    private final int servicePerIp;
+    private final Duration window;
+    private final Counter rejectedByIp;
+    private final Counter rejectedByEmail;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiterBackend backend,
+                           @Value("${spring.app.rateLimitPaths:/api/users/login,/api/users/verify,/api/users/otp,"
+                                   + "/api/users/forgot-password,/api/users/reset-password,/api/users/register,/api/users/refresh}")
+                           Set<String> paths,
+                           @Value("${spring.app.rateLimitServicePaths:/api/tokens/introspect}") Set<String> servicePaths,
+                           @Value("${spring.app.rateLimitPerIp:30}") int perIp,
+                           @Value("${spring.app.rateLimitPerEmail:5}") int perEmail,
+                           @Value("${spring.app.rateLimitServicePerIp:600}") int servicePerIp,
+                           @Value("${spring.app.rateLimitWindow:PT1M}") Duration window,
+                           MeterRegistry meterRegistry,
+                           ObjectMapper objectMapper) {
+        this.backend = backend;
+        this.paths = Set.copyOf(paths);
+        this.servicePaths = Set.copyOf(servicePaths);
+        this.perIp = perIp;
+        this.perEmail = perEmail;
+        this.servicePerIp = servicePerIp;
+        this.window = window;
+        this.rejectedByIp = Counter.builder("http.ratelimit.rejected").tag("key", "ip").register(meterRegistry);
+        this.rejectedByEmail = Counter.builder("http.ratelimit.rejected").tag("key", "email").register(meterRegistry);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !"POST".equals(request.getMethod()) || !(paths.contains(path) || servicePaths.contains(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        boolean service = servicePaths.contains(path);
+        RateLimiterBackend.Decision decision = backend.tryAcquire("ip:" + request.getRemoteAddr() + path,
+                service ? servicePerIp : perIp, window);
+        if (!decision.allowed()) {
+            rejectedByIp.increment();
+            reject(response, decision.retryAfterSeconds());
+            return;
+        }
+        if (service) {
+            // Body là lô token (có thể lớn), không có email: không đọc
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest effectiveRequest = request;
+        String email = request.getParameter("email");
+        if (email == null && isJson(request) && request.getContentLengthLong() <= MAX_BODY_BYTES) {
+            byte[] body = readBody(request);
+            if (body.length > MAX_BODY_BYTES) {
+                // Chunked, không có Content-Length: không giữ body lớn trong bộ nhớ
+                writeError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                        new ApiResponseDTO(false, "Nội dung yêu cầu quá lớn.", "PAYLOAD_TOO_LARGE", null));
+                return;
+            }
+            CachedBodyHttpServletRequest cached = new CachedBodyHttpServletRequest(request, body);
+            email = emailFromJson(cached.getBody());
+            effectiveRequest = cached;
+        }
+        if (email != null && !email.isBlank()) {
+            decision = backend.tryAcquire("email:" + email.trim().toLowerCase(Locale.ROOT) + path, perEmail, window);
+            if (!decision.allowed()) {
+                rejectedByEmail.increment();
+                reject(response, decision.retryAfterSeconds());
+                return;
+            }
+        }
+        filterChain.doFilter(effectiveRequest, response);
+    }
+
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    /**
+     * Đọc tối đa {@code MAX_BODY_BYTES + 1} byte: đủ để biết body có vượt giới hạn hay không.
+     */
+    private static byte[] readBody(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        return in.readNBytes(MAX_BODY_BYTES + 1);
+    }
+
+    private String emailFromJson(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        writeError(response, HttpStatus.TOO_MANY_REQUESTS,
+                new ApiResponseDTO(false, "Bạn thao tác quá nhanh, vui lòng thử lại sau.", "RATE_LIMITED", null));
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, ApiResponseDTO body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,44 @@
+package fpt.sep.apjf.utils;
+
+import java.time.Duration;
+
+/**
+ * Shared state behind {@link RateLimitFilter}. Implementations use a sliding-window counter: the hit count of
+ * the current fixed window plus the previous window's count weighted by how much of it still overlaps.
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * Ghi nhận một lượt cho {@code key} nếu còn hạn mức trong cửa sổ {@code window}.
+     */
+    Decision tryAcquire(String key, int limit, Duration window);
+
+    record Decision(boolean allowed, long retryAfterSeconds) {
+
+        static final Decision ALLOWED = new Decision(true, 0);
+    }
+
+    /**
+     * Ước lượng số lượt trong cửa sổ trượt kết thúc tại {@code nowMillis}.
+     */
+    static double estimate(long previous, long current, long nowMillis, long windowMillis) {
+        double elapsed = (double) (nowMillis % windowMillis) / windowMillis;
+        return previous * (1 - elapsed) + current;
+    }
+
+    /**
+     * Số giây (làm tròn lên, tối thiểu 1) cho tới khi ước lượng giảm xuống dưới {@code limit}.
+     */
+    static long retryAfterSeconds(long previous, long current, int limit, long nowMillis, long windowMillis) {
+        long intoWindow = nowMillis % windowMillis;
+        long waitMillis;
+        if (current >= limit || previous == 0) {
+            // Phải chờ sang cửa sổ sau, khi đó lượt của cửa sổ hiện tại thành "previous"
+            waitMillis = windowMillis - intoWindow;
+        } else {
+            double neededFraction = 1 - (double) (limit - current) / previous;
+            waitMillis = (long) Math.ceil(neededFraction * windowMillis) - intoWindow;
+        }
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+}
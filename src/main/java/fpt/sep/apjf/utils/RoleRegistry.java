@@ -0,0 +1,188 @@
+package fpt.sep.apjf.utils;
+
+import fpt.sep.apjf.entity.Authority;
+import fpt.sep.apjf.repository.AuthorityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every role the service knows, loaded once from {@code authorities}.
+ * <p>
+ * Each role gets a bit derived from its authority id ({@code id - 1}, ids 1..63), which is the same on
+ * every node sharing the database, so a role set can travel as one {@code long} (optional compact
+ * {@code rb} JWT claim). Role sets and {@link GrantedAuthority} objects are interned: the filter and the
+ * caches hand out the same immutable instances instead of allocating per request. An unknown role or bit
+ * triggers a (throttled) reload, e.g. after a new authority row is added.
+ */
+@Component
+@Slf4j
+public class RoleRegistry {
+
+    // Bit dấu không dùng để bitset luôn không âm
+    private static final int MAX_BITS = Long.SIZE - 1;
+    private static final long RELOAD_INTERVAL_NANOS = 10_000_000_000L;
+
+    private final AuthorityRepository authorityRepository;
+    private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final Map<List<String>, RoleSet> setsByRoles = new ConcurrentHashMap<>();
+    private final Map<Long, RoleSet> setsByBits = new ConcurrentHashMap<>();
+    private volatile Map<String, Integer> bitByRole = Map.of();
+    private volatile String[] roleByBit = new String[MAX_BITS];
+    private long lastReloadNanos;
+
+    @Autowired
+    public RoleRegistry(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+        reload();
+    }
+
+    private RoleRegistry(List<String> roles) {
+        this.authorityRepository = null;
+        assign(roles);
+    }
+
+    /**
+     * Registry cố định (bit theo thứ tự tham số), dùng cho test và benchmark.
+     */
+    public static RoleRegistry of(String... roles) {
+        return new RoleRegistry(List.of(roles));
+    }
+
+    public synchronized void reload() {
+        if (authorityRepository == null) {
+            return;
+        }
+        lastReloadNanos = System.nanoTime();
+        List<String> roles = new ArrayList<>();
+        for (Authority authority : authorityRepository.findAll()) {
+            long id = authority.getId();
+            if (id < 1 || id > MAX_BITS) {
+                log.warn("Authority {} (id {}) has no role bit; tokens with it use the plain roles claim",
+                        authority.getAuthority(), id);
+                continue;
+            }
+            while (roles.size() < id) {
+                roles.add(null);
+            }
+            roles.set((int) id - 1, authority.getAuthority());
+        }
+        assign(roles);
+    }
+
+    private void assign(List<String> roles) {
+        Map<String, Integer> bits = new HashMap<>();
+        String[] names = new String[MAX_BITS];
+        for (int bit = 0; bit < roles.size() && bit < MAX_BITS; bit++) {
+            String role = roles.get(bit);
+            if (role != null) {
+                bits.putIfAbsent(role, bit);
+                names[bit] = role;
+            }
+        }
+        this.bitByRole = Map.copyOf(bits);
+        this.roleByBit = names;
+        // Bit có thể đã đổi nghĩa
+        setsByBits.clear();
+        setsByRoles.clear();
+    }
+
+    public GrantedAuthority authority(String role) {
+        return authorities.computeIfAbsent(role, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * @return bitset của các role, hoặc rỗng nếu có role chưa được gán bit
+     */
+    public OptionalLong encode(Collection<String> roles) {
+        long bits = encodeOrNegative(roles);
+        if (bits < 0 && tryReload()) {
+            bits = encodeOrNegative(roles);
+        }
+        return bits < 0 ? OptionalLong.empty() : OptionalLong.of(bits);
+    }
+
+    private long encodeOrNegative(Collection<String> roles) {
+        Map<String, Integer> bits = bitByRole;
+        long result = 0;
+        for (String role : roles) {
+            Integer bit = bits.get(role);
+            if (bit == null) {
+                return -1;
+            }
+            result |= 1L << bit;
+        }
+        return result;
+    }
+
+    /**
+     * Giải mã bitset từ claim {@code rb}; bit không xác định thì ném {@link IllegalArgumentException}.
+     */
+    public RoleSet decode(long bits) {
+        RoleSet cached = setsByBits.get(bits);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> roles = decodeOrNull(bits);
+        if (roles == null && tryReload()) {
+            roles = decodeOrNull(bits);
+        }
+        if (roles == null) {
+            throw new IllegalArgumentException("Unknown role bit in " + Long.toBinaryString(bits));
+        }
+        RoleSet roleSet = roleSet(roles);
+        setsByBits.put(bits, roleSet);
+        return roleSet;
+    }
+
+    private List<String> decodeOrNull(long bits) {
+        String[] names = roleByBit;
+        List<String> roles = new ArrayList<>(Long.bitCount(bits));
+        for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+            String role = names[Long.numberOfTrailingZeros(remaining)];
+            if (role == null) {
+                return null;
+            }
+            roles.add(role);
+        }
+        return roles;
+    }
+
+    /**
+     * Bản dùng chung (bất biến) của một tập role.
+     */
+    public RoleSet roleSet(List<String> roles) {
+        RoleSet cached = setsByRoles.get(roles);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> key = List.copyOf(roles);
+        return setsByRoles.computeIfAbsent(key, k -> new RoleSet(k,
+                k.stream().map(this::authority).toList(),
+                encodeOrNegative(k)));
+    }
+
+    private synchronized boolean tryReload() {
+        if (authorityRepository == null || System.nanoTime() - lastReloadNanos < RELOAD_INTERVAL_NANOS) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    /**
+     * @param bits bitset của {@code roles}, hoặc âm nếu không mã hóa được
+     */
+    public record RoleSet(List<String> roles, List<GrantedAuthority> authorities, long bits) {
+    }
+}
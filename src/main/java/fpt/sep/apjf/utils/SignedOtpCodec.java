@@ -0,0 +1,114 @@
+package fpt.sep.apjf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Self-contained verification codes for the types listed in {@code spring.app.otpSignedTypes}: nothing is
+ * written to {@code verify_token}, the code itself proves what it was issued for.
+ * <p>
+ * A code is {@code base64url(version || expiry || mac)} (28 characters), where {@code mac} is a truncated
+ * {@code HMAC-SHA256(spring.app.otpSignedKey, version || type || userId || email || expiry || passwordHash)}.
+ * Binding the current password hash makes a reset code single-use: once the password changes, every
+ * outstanding code for the user stops verifying. Unlike stored OTPs, issuing a new code does not cancel
+ * older ones; they simply run until their expiry. {@code spring.app.otpSignedKey} is required whenever a
+ * type is signed, and must be the same on every instance.
+ */
+@Component
+public class SignedOtpCodec {
+
+    private static final byte VERSION = 1;
+    private static final int MAC_LENGTH = 16;
+    private static final int TOKEN_BYTES = 1 + Integer.BYTES + MAC_LENGTH;
+    // Độ dài base64url không padding của TOKEN_BYTES
+    private static final int TOKEN_LENGTH = (TOKEN_BYTES * 8 + 5) / 6;
+
+    private final Set<VerifyTokenType> signedTypes;
+    private final HmacSha256 hmac;
+
+    public SignedOtpCodec(@Value("${spring.app.otpSignedTypes:}") Set<VerifyTokenType> signedTypes,
+                          @Value("${spring.app.otpSignedKey:}") String secret) {
+        this.signedTypes = signedTypes.isEmpty() ? EnumSet.noneOf(VerifyTokenType.class) : EnumSet.copyOf(signedTypes);
+        if (secret == null || secret.isBlank()) {
+            if (!this.signedTypes.isEmpty()) {
+                throw new IllegalStateException(
+                        "spring.app.otpSignedKey must be configured when spring.app.otpSignedTypes is set");
+            }
+            this.hmac = null;
+            return;
+        }
+        this.hmac = new HmacSha256(Base64.getDecoder().decode(secret));
+    }
+
+    /**
+     * Loại token này có phát hành dạng mã ký thay cho OTP lưu trong {@link fpt.sep.apjf.service.VerifyTokenStore} không.
+     */
+    public boolean isEnabled(VerifyTokenType type) {
+        return signedTypes.contains(type);
+    }
+
+    /**
+     * Nhận dạng mã ký theo hình dạng, để mã đã gửi trước khi đổi chế độ vẫn được kiểm tra đúng cách.
+     */
+    public boolean isSignedToken(String value) {
+        return value != null && value.length() == TOKEN_LENGTH && value.chars().allMatch(SignedOtpCodec::isBase64Url);
+    }
+
+    public String issue(VerifyTokenType type, Long userId, String email, String passwordHash, Instant expiresAt) {
+        int expiry = (int) expiresAt.getEpochSecond();
+        byte[] token = ByteBuffer.allocate(TOKEN_BYTES)
+                .put(VERSION)
+                .putInt(expiry)
+                .put(mac(type, userId, email, passwordHash, expiry))
+                .array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    public boolean verify(String token, VerifyTokenType type, Long userId, String email, String passwordHash,
+                          Instant now) {
+        // Chưa cấu hình khóa thì chưa từng phát hành mã ký nào
+        if (hmac == null || !isSignedToken(token)) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+        if (buffer.get() != VERSION) {
+            return false;
+        }
+        int expiry = buffer.getInt();
+        byte[] mac = new byte[MAC_LENGTH];
+        buffer.get(mac);
+        // So MAC trước (thời gian hằng) rồi mới xét hạn
+        boolean valid = MessageDigest.isEqual(mac, mac(type, userId, email, passwordHash, expiry));
+        return valid && Integer.toUnsignedLong(expiry) > now.getEpochSecond();
+    }
+
+    private byte[] mac(VerifyTokenType type, Long userId, String email, String passwordHash, int expiry) {
+        Mac mac = hmac.newMac();
+        mac.update(VERSION);
+        mac.update(type.name().getBytes(StandardCharsets.US_ASCII));
+        mac.update((byte) 0);
+        mac.update(ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(userId).putInt(expiry).array());
+        mac.update(email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        if (passwordHash != null) {
+            mac.update(passwordHash.getBytes(StandardCharsets.UTF_8));
+        }
+        return Arrays.copyOf(mac.doFinal(), MAC_LENGTH);
+    }
+
+    private static boolean isBase64Url(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+}
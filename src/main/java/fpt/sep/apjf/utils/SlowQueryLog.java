@@ -0,0 +1,146 @@
+package fpt.sep.apjf.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replacement for {@code show-sql}: times every JDBC statement executed through the wrapped
+ * {@link DataSource} and logs only those slower than {@code spring.app.slowQueryThreshold}.
+ * <p>
+ * Logging is sampled: at most {@code spring.app.slowQueryLogPerSecond} lines per second, further slow
+ * statements in the same second are only counted and reported with the next logged line. Every slow
+ * statement increments {@code db.statements.slow}. The wrapper covers JPA and {@code JdbcTemplate} alike
+ * and forwards {@code unwrap}, so pool metrics still see the Hikari pool.
+ */
+@Component
+@Slf4j
+public class SlowQueryLog {
+
+    private static final int MAX_SQL_LENGTH = 500;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long thresholdNanos;
+    private final int logPerSecond;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong loggedInWindow = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    // Tạo lúc cần: wrapper được dựng khi DataSource khởi tạo, trước MeterRegistry
+    private volatile Counter slowCounter;
+
+    public SlowQueryLog(ObjectProvider<MeterRegistry> meterRegistry,
+                        @Value("${spring.app.slowQueryThreshold:PT0.2S}") Duration threshold,
+                        @Value("${spring.app.slowQueryLogPerSecond:5}") int logPerSecond) {
+        this.meterRegistry = meterRegistry;
+        this.thresholdNanos = threshold.toNanos();
+        this.logPerSecond = logPerSecond;
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, null);
+    }
+
+    void record(String sql, long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        Counter counter = slowCounter;
+        if (counter == null) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                counter = Counter.builder("db.statements.slow").register(registry);
+                slowCounter = counter;
+            }
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+
+        long second = System.nanoTime() / TimeUnit.SECONDS.toNanos(1);
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second)) {
+            loggedInWindow.set(0);
+        }
+        if (loggedInWindow.incrementAndGet() > logPerSecond) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long skipped = suppressed.getAndSet(0);
+        log.warn("Slow SQL ({} ms{}): {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                skipped > 0 ? ", " + skipped + " more not logged" : "", truncate(sql));
+    }
+
+    private static String truncate(String sql) {
+        if (sql == null) {
+            return "<batch>";
+        }
+        return sql.length() <= MAX_SQL_LENGTH ? sql : sql.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
+    private <T> T proxy(Class<T> type, T target, String sql) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new TimingHandler(target, sql)));
+    }
+
+    private final class TimingHandler implements InvocationHandler {
+
+        private final Object target;
+        // SQL của PreparedStatement; null với DataSource, Connection và Statement thường
+        private final String sql;
+
+        TimingHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            boolean timed = target instanceof Statement && name.startsWith("execute");
+            long start = timed ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (timed) {
+                    record(sql != null ? sql : args != null && args.length > 0 ? String.valueOf(args[0]) : null,
+                            System.nanoTime() - start);
+                }
+            }
+
+            if (target instanceof DataSource && result instanceof Connection connection) {
+                return proxy(Connection.class, connection, null);
+            }
+            if (target instanceof Connection) {
+                if (result instanceof CallableStatement statement) {
+                    return proxy(CallableStatement.class, statement, (String) args[0]);
+                }
+                if (result instanceof PreparedStatement statement) {
+                    return proxy(PreparedStatement.class, statement, (String) args[0]);
+                }
+                if (result instanceof Statement statement) {
+                    return proxy(Statement.class, statement, null);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package fpt.sep.apjf.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a small pool of connected, authenticated SMTP {@link Transport}s and sends batches of
+ * messages over a single connection, so the TCP + STARTTLS + AUTH handshake is paid once per
+ * connection instead of once per email.
+ * <p>
+ * A connection is checked with {@link Transport#isConnected()} (SMTP NOOP) once per batch, not per
+ * message; a send that fails because the server dropped the connection reconnects and retries once.
+ * Connections are closed after {@code spring.app.smtpIdleTimeout} of inactivity. Meters per connection:
+ * {@code mail.smtp.handshake} (timer) and {@code mail.smtp.messages} (counter, tag {@code result}).
+ */
+@Component
+@Slf4j
+public class SmtpConnectionPool implements DisposableBean {
+
+    private final JavaMailSender javaMailSender;
+    private final MeterRegistry meterRegistry;
+    private final Duration idleTimeout;
+    private final Semaphore permits;
+    private final BlockingQueue<PooledConnection> idle;
+    // Mỗi kết nối giữ một slot cố định để tag metric không tăng vô hạn
+    private final ConcurrentLinkedQueue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+
+    public SmtpConnectionPool(JavaMailSender javaMailSender,
+                              MeterRegistry meterRegistry,
+                              @Value("${spring.app.smtpPoolSize:2}") int poolSize,
+                              @Value("${spring.app.smtpIdleTimeout:PT60S}") Duration idleTimeout) {
+        this.javaMailSender = javaMailSender;
+        this.meterRegistry = meterRegistry;
+        this.idleTimeout = idleTimeout;
+        this.permits = new Semaphore(poolSize);
+        this.idle = new LinkedBlockingQueue<>(poolSize);
+        for (int slot = 0; slot < poolSize; slot++) {
+            freeSlots.add(slot);
+        }
+        Gauge.builder("mail.smtp.connections.idle", idle, BlockingQueue::size).register(meterRegistry);
+    }
+
+    /**
+     * Gửi cả lô qua một kết nối. Phần tử thứ i của kết quả là lỗi của message thứ i, hoặc null nếu gửi được.
+     */
+    public List<Exception> sendBatch(List<MimeMessage> messages) throws InterruptedException {
+        List<Exception> results = new ArrayList<>(messages.size());
+        if (!(javaMailSender instanceof JavaMailSenderImpl sender)) {
+            // Không có Session để giữ kết nối (ví dụ mock): gửi từng message qua JavaMailSender
+            for (MimeMessage message : messages) {
+                try {
+                    javaMailSender.send(message);
+                    results.add(null);
+                } catch (RuntimeException e) {
+                    results.add(e);
+                }
+            }
+            return results;
+        }
+
+        permits.acquire();
+        PooledConnection connection = idle.poll();
+        try {
+            if (connection == null) {
+                connection = new PooledConnection(sender, freeSlots.remove());
+            }
+            Exception connectError = connection.open();
+            if (connectError != null) {
+                // Không kết nối được tới SMTP: cả lô thất bại, relay sẽ thử lại sau
+                while (results.size() < messages.size()) {
+                    results.add(connectError);
+                }
+                return results;
+            }
+            for (MimeMessage message : messages) {
+                Exception error = connection.send(message);
+                results.add(error);
+                if (error != null && !connection.isConnected()) {
+                    // Không kết nối được tới SMTP: phần còn lại của lô thất bại luôn, relay sẽ thử lại sau
+                    while (results.size() < messages.size()) {
+                        results.add(error);
+                    }
+                    break;
+                }
+            }
+            connection.lastUsedNanos = System.nanoTime();
+            if (!idle.offer(connection)) {
+                connection.close();
+            }
+            connection = null;
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+            permits.release();
+        }
+        return results;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.smtpIdleCheckMs:15000}")
+    public void closeIdleConnections() {
+        long now = System.nanoTime();
+        int size = idle.size();
+        for (int i = 0; i < size; i++) {
+            PooledConnection connection = idle.poll();
+            if (connection == null) {
+                return;
+            }
+            if (now - connection.lastUsedNanos > idleTimeout.toNanos()) {
+                connection.close();
+            } else if (!idle.offer(connection)) {
+                connection.close();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private final class PooledConnection {
+
+        private final JavaMailSenderImpl sender;
+        private final int slot;
+        private final Transport transport;
+        private final Timer handshakeTimer;
+        private final Counter sent;
+        private final Counter failed;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        PooledConnection(JavaMailSenderImpl sender, int slot) {
+            this.sender = sender;
+            this.slot = slot;
+            try {
+                this.transport = sender.getSession().getTransport(sender.getProtocol() == null ? "smtp" : sender.getProtocol());
+            } catch (MessagingException e) {
+                freeSlots.add(slot);
+                throw new IllegalStateException("Cannot create SMTP transport", e);
+            }
+            String connectionTag = String.valueOf(slot);
+            this.handshakeTimer = Timer.builder("mail.smtp.handshake")
+                    .tag("connection", connectionTag)
+                    .register(meterRegistry);
+            this.sent = Counter.builder("mail.smtp.messages")
+                    .tag("connection", connectionTag).tag("result", "sent")
+                    .register(meterRegistry);
+            this.failed = Counter.builder("mail.smtp.messages")
+                    .tag("connection", connectionTag).tag("result", "failed")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Kiểm tra (NOOP) hoặc mở kết nối một lần cho cả lô.
+         */
+        Exception open() {
+            try {
+                ensureConnected();
+                return null;
+            } catch (MessagingException | RuntimeException e) {
+                return e;
+            }
+        }
+
+        Exception send(MimeMessage message) {
+            try {
+                message.saveChanges();
+                try {
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (MessagingException e) {
+                    if (transport.isConnected()) {
+                        throw e;
+                    }
+                    // Server đã đóng kết nối (idle timeout phía server): kết nối lại và thử lại một lần
+                    log.debug("SMTP connection dropped, reconnecting: {}", e.getMessage());
+                    ensureConnected();
+                    transport.sendMessage(message, message.getAllRecipients());
+                }
+                sent.increment();
+                return null;
+            } catch (MessagingException | RuntimeException e) {
+                failed.increment();
+                return e;
+            }
+        }
+
+        boolean isConnected() {
+            return transport.isConnected();
+        }
+
+        private void ensureConnected() throws MessagingException {
+            if (transport.isConnected()) {
+                return;
+            }
+            long start = System.nanoTime();
+            String username = sender.getUsername();
+            String password = sender.getPassword();
+            if ("".equals(username)) {
+                username = null;
+                password = null;
+            }
+            transport.connect(sender.getHost(), sender.getPort(), username, password);
+            handshakeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Error closing SMTP connection: {}", e.getMessage());
+            } finally {
+                freeSlots.add(slot);
+            }
+        }
+    }
+}
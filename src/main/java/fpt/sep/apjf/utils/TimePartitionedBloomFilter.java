@@ -0,0 +1,136 @@
+package fpt.sep.apjf.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bloom filter of {@link UUID} keys that forgets each key once it has expired, without deletes.
+ * <p>
+ * Time is cut into slices of {@code partitionSpan}; a key goes into the partition of the slice holding
+ * its expiry, so it is kept until at least that instant. A ring of {@code ceil(maxTtl / span) + 1}
+ * partitions covers every accepted expiry; a partition is reset when its ring slot is reused for a later
+ * slice, and partitions whose slice has passed are skipped on lookup. Lookups and inserts are lock-free
+ * ({@link AtomicLongArray}); only switching a slot to a new slice synchronizes.
+ */
+public class TimePartitionedBloomFilter {
+
+    private final Clock clock;
+    private final long spanMillis;
+    private final long maxTtlMillis;
+    private final int bitsPerPartition;
+    private final int hashes;
+    private final AtomicReferenceArray<Partition> ring;
+
+    public TimePartitionedBloomFilter(Duration partitionSpan, Duration maxTtl, int expectedPerPartition,
+                                      double falsePositiveRate, Clock clock) {
+        if (partitionSpan.isNegative() || partitionSpan.isZero()) {
+            throw new IllegalArgumentException("partitionSpan must be positive");
+        }
+        this.clock = clock;
+        this.spanMillis = partitionSpan.toMillis();
+        this.maxTtlMillis = maxTtl.toMillis();
+        // m = -n ln p / (ln 2)^2, k = m/n ln 2
+        long bits = (long) Math.ceil(-Math.max(expectedPerPartition, 1) * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)));
+        this.bitsPerPartition = (int) Math.min(Math.max(bits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.hashes = Math.max(1, (int) Math.round((double) bitsPerPartition / Math.max(expectedPerPartition, 1)
+                * Math.log(2)));
+        this.ring = new AtomicReferenceArray<>((int) ((maxTtlMillis + spanMillis - 1) / spanMillis) + 1);
+    }
+
+    /**
+     * Ghi nhớ {@code key} tới ít nhất {@code expiresAt}; key đã hết hạn thì bỏ qua.
+     *
+     * @throws IllegalArgumentException nếu {@code expiresAt} xa hơn {@code maxTtl}
+     */
+    public void put(UUID key, Instant expiresAt) {
+        long now = clock.millis();
+        long expiry = expiresAt.toEpochMilli();
+        if (expiry < now) {
+            return;
+        }
+        if (expiry - now > maxTtlMillis) {
+            throw new IllegalArgumentException("expiresAt is beyond the filter's maxTtl");
+        }
+        Partition partition = partitionFor(Math.floorDiv(expiry, spanMillis));
+        long h1 = h1(key);
+        long h2 = h2(key);
+        for (int i = 0; i < hashes; i++) {
+            int bit = bitIndex(h1, h2, i);
+            long mask = 1L << bit;
+            long word;
+            do {
+                word = partition.bits.get(bit >>> 6);
+            } while ((word & mask) == 0 && !partition.bits.compareAndSet(bit >>> 6, word, word | mask));
+        }
+    }
+
+    /**
+     * {@code false}: chắc chắn chưa được {@link #put} (hoặc đã hết hạn); {@code true}: có thể có.
+     */
+    public boolean mightContain(UUID key) {
+        long currentSlice = Math.floorDiv(clock.millis(), spanMillis);
+        long h1 = h1(key);
+        long h2 = h2(key);
+        for (int i = 0; i < ring.length(); i++) {
+            Partition partition = ring.get(i);
+            if (partition != null && partition.slice >= currentSlice && contains(partition, h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(Partition partition, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = bitIndex(h1, h2, i);
+            if ((partition.bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Partition partitionFor(long slice) {
+        int index = (int) Math.floorMod(slice, (long) ring.length());
+        Partition partition = ring.get(index);
+        if (partition != null && partition.slice == slice) {
+            return partition;
+        }
+        synchronized (this) {
+            partition = ring.get(index);
+            // Slot cũ thuộc slice sớm hơn ring.length() slice, đã hết hạn
+            if (partition == null || partition.slice < slice) {
+                partition = new Partition(slice, new AtomicLongArray((bitsPerPartition + Long.SIZE - 1) / Long.SIZE));
+                ring.set(index, partition);
+            }
+            return partition;
+        }
+    }
+
+    private int bitIndex(long h1, long h2, int i) {
+        return (int) Math.floorMod(h1 + i * h2, (long) bitsPerPartition);
+    }
+
+    private static long h1(UUID key) {
+        return mix(key.getMostSignificantBits() ^ Long.rotateLeft(key.getLeastSignificantBits(), 32));
+    }
+
+    private static long h2(UUID key) {
+        return mix(key.getLeastSignificantBits() + 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private record Partition(long slice, AtomicLongArray bits) {
+    }
+}
@@ -0,0 +1,126 @@
+package fpt.sep.apjf.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded cache of already-verified access tokens, keyed by the SHA-256 digest of the token.
+ * <p>
+ * An entry never outlives the token's {@code exp} claim (nor {@code spring.app.jwtCacheTtl});
+ * eviction is size-based. Hit/miss, eviction and load-time statistics are published to
+ * Micrometer as {@code cache.*} meters tagged {@code cache=jwt.verified}. The cache is cleared whenever
+ * {@link JwtKeyManager} drops a verification key, so a removed key stops authenticating at once.
+ * Setting {@code spring.app.jwtCacheSize=0} bypasses the cache.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final String CACHE_NAME = "jwt.verified";
+
+    private final JwtUtils jwtUtils;
+    private final Duration maxTtl;
+    private final Cache<String, CachedAuthentication> cache;
+
+    public VerifiedTokenCache(JwtUtils jwtUtils,
+                              MeterRegistry meterRegistry,
+                              @Value("${spring.app.jwtCacheSize:10000}") long maxSize,
+                              @Value("${spring.app.jwtCacheTtl:PT5M}") Duration maxTtl) {
+        this.jwtUtils = jwtUtils;
+        this.maxTtl = maxTtl;
+        if (maxSize <= 0) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        jwtUtils.keyManager().onKeysRemoved(this::invalidateAll);
+    }
+
+    public Optional<CachedAuthentication> get(String token) {
+        if (cache == null) {
+            return jwtUtils.parseToken(token).map(this::toEntry);
+        }
+        // Token không hợp lệ trả về null nên không bị cache
+        return Optional.ofNullable(cache.get(digest(token),
+                key -> jwtUtils.parseToken(token).map(this::toEntry).orElse(null)));
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private CachedAuthentication toEntry(JwtClaimsView claims) {
+        // GrantedAuthority dùng chung từ RoleRegistry, không tạo mới mỗi request
+        return new CachedAuthentication(claims, jwtUtils.roleRegistry().roleSet(claims.roles()).authorities());
+    }
+
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private long ttlNanos(CachedAuthentication value) {
+        Instant expiresAt = value.claims().expiresAt();
+        if (expiresAt == null) {
+            return maxTtl.toNanos();
+        }
+        Duration untilExpiry = Duration.between(Instant.now(), expiresAt);
+        if (untilExpiry.isNegative()) {
+            return 0;
+        }
+        return Math.min(untilExpiry.toNanos(), maxTtl.toNanos());
+    }
+
+    private class TokenExpiry implements Expiry<String, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+            return ttlNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return ttlNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Principal and authorities derived from a verified token.
+     */
+    public record CachedAuthentication(JwtClaimsView claims, List<GrantedAuthority> authorities) {
+
+        public String username() {
+            return claims.subject();
+        }
+    }
+}
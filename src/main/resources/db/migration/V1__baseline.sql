@@ -0,0 +1,62 @@
+-- Schema trước khi chuyển sang Flyway (trước đây do ddl-auto: update tạo ra).
+-- Dùng IF NOT EXISTS để chạy được cả trên DB mới lẫn DB cũ đã có bảng (baseline-version: 0).
+
+CREATE TABLE IF NOT EXISTS users (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username       VARCHAR(255) NOT NULL UNIQUE,
+    password       VARCHAR(255) NOT NULL,
+    email          VARCHAR(255) UNIQUE,
+    pending_email  VARCHAR(255) UNIQUE,
+    address        VARCHAR(255),
+    phone          VARCHAR(10),
+    avatar         VARCHAR(255),
+    enabled        BOOLEAN NOT NULL,
+    email_verified BOOLEAN NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS authorities (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    authority VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS user_authority (
+    user_id      BIGINT NOT NULL REFERENCES users (id),
+    authority_id BIGINT NOT NULL REFERENCES authorities (id)
+);
+
+CREATE TABLE IF NOT EXISTS verify_token (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id         BIGINT NOT NULL REFERENCES users (id),
+    token_hash      BYTEA,
+    requested_time  TIMESTAMP(6) NOT NULL,
+    expiration_time TIMESTAMP(6) NOT NULL,
+    type            VARCHAR(20) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idempotency_key VARCHAR(64) NOT NULL UNIQUE,
+    recipient       VARCHAR(255) NOT NULL,
+    type            VARCHAR(20) NOT NULL,
+    otp             VARCHAR(64),
+    locale          VARCHAR(8),
+    status          VARCHAR(10) NOT NULL,
+    attempts        INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    sent_at         TIMESTAMP(6),
+    last_error      VARCHAR(500)
+);
+
+CREATE TABLE IF NOT EXISTS rate_limit_counter (
+    bucket_key VARCHAR(320) PRIMARY KEY,
+    hits       INTEGER NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+
+-- Cột có thể còn thiếu trên DB được tạo trước khi thêm vào entity
+ALTER TABLE verify_token ADD COLUMN IF NOT EXISTS token_hash BYTEA;
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS locale VARCHAR(8);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_counter_expires ON rate_limit_counter (expires_at);
+CREATE INDEX IF NOT EXISTS idx_verify_token_expiration ON verify_token (expiration_time);
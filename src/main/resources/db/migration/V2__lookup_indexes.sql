@@ -0,0 +1,22 @@
+-- Index cho các query của repository (kiểm tra bằng RepositoryIndexUsageTest)
+
+-- findTopByUserIdAndTypeOrderByRequestedTimeDesc: lấy bản mới nhất mà không cần sort
+DROP INDEX IF EXISTS idx_verify_token_user_type;
+CREATE INDEX IF NOT EXISTS idx_verify_token_user_type_requested
+    ON verify_token (user_id, type, requested_time DESC);
+
+-- findByEmail / existsByEmail / login projection so sánh lower(email)
+CREATE INDEX IF NOT EXISTS idx_users_email_lower ON users (lower(email));
+
+-- findByEmailContaining: LIKE '%...%' trên lower(email) dùng trigram
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+
+-- user_authority không có khóa chính: index cho join từ cả hai phía
+CREATE INDEX IF NOT EXISTS idx_user_authority_user ON user_authority (user_id, authority_id);
+CREATE INDEX IF NOT EXISTS idx_user_authority_authority ON user_authority (authority_id, user_id);
+CREATE INDEX IF NOT EXISTS idx_authorities_authority ON authorities (authority);
+
+-- EmailOutboxRelay.findDueForUpdate và purgeSent
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due ON email_outbox (status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_created ON email_outbox (status, created_at);
@@ -0,0 +1,3 @@
+-- verify_token chuyển từ IDENTITY sang sequence (allocationSize 50) để Hibernate gom INSERT thành batch
+CREATE SEQUENCE IF NOT EXISTS verify_token_seq INCREMENT BY 50;
+SELECT setval('verify_token_seq', (SELECT coalesce(max(id), 0) + 1 FROM verify_token), false);
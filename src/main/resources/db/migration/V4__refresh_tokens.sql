@@ -0,0 +1,22 @@
+-- Refresh token: mỗi dòng là một phiên (family), chỉ token mới nhất (generation hiện tại) còn dùng được
+CREATE TABLE IF NOT EXISTS refresh_token (
+    family_id  UUID PRIMARY KEY,
+    user_id    BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    generation INTEGER NOT NULL,
+    token_hash BYTEA NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    rotated_at TIMESTAMP(6),
+    expires_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_user ON refresh_token (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expires ON refresh_token (expires_at);
+
+-- Phiên đã bị thu hồi (logout, đổi mật khẩu, phát hiện dùng lại token), giữ tới khi phiên lẽ ra hết hạn
+CREATE TABLE IF NOT EXISTS refresh_token_revocation (
+    family_id  UUID PRIMARY KEY,
+    user_id    BIGINT NOT NULL,
+    revoked_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_revocation_revoked ON refresh_token_revocation (revoked_at);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_revocation_expires ON refresh_token_revocation (expires_at);
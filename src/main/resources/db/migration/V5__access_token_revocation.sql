@@ -0,0 +1,19 @@
+-- Access token bị thu hồi theo jti (một token) hoặc sid (cả phiên), giữ tới khi token lẽ ra hết hạn
+CREATE TABLE IF NOT EXISTS revoked_access_token (
+    token_id   UUID PRIMARY KEY,
+    user_id    BIGINT,
+    revoked_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_access_token_revoked ON revoked_access_token (revoked_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_access_token_expires ON revoked_access_token (expires_at);
+
+-- Mọi access token của user phát hành trước not_before đều bị từ chối (đổi mật khẩu, đăng xuất toàn bộ)
+CREATE TABLE IF NOT EXISTS user_token_watermark (
+    user_id    BIGINT PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    not_before TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_user_token_watermark_updated ON user_token_watermark (updated_at);
+CREATE INDEX IF NOT EXISTS idx_user_token_watermark_expires ON user_token_watermark (expires_at);
@@ -0,0 +1,13 @@
+-- Job import user hàng loạt; processed_rows là checkpoint (số bản ghi đầu vào đã xử lý xong) để chạy tiếp
+CREATE TABLE IF NOT EXISTS user_import_job (
+    id             UUID PRIMARY KEY,
+    format         VARCHAR(8) NOT NULL,
+    status         VARCHAR(10) NOT NULL,
+    processed_rows BIGINT NOT NULL,
+    imported_rows  BIGINT NOT NULL,
+    skipped_rows   BIGINT NOT NULL,
+    failed_rows    BIGINT NOT NULL,
+    last_error     VARCHAR(500),
+    created_at     TIMESTAMP(6) NOT NULL,
+    updated_at     TIMESTAMP(6) NOT NULL
+);
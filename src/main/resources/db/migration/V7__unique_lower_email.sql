@@ -0,0 +1,21 @@
+-- Email so sánh không phân biệt hoa thường: hai tài khoản chỉ khác hoa/thường làm login projection trả về
+-- dòng của nhiều user. Dừng migration và liệt kê để xử lý tay (gộp hoặc đổi email) thay vì tự xóa tài khoản.
+DO $$
+DECLARE
+    duplicates TEXT;
+BEGIN
+    SELECT string_agg(format('%s (id %s)', email_lower, ids), '; ')
+    INTO duplicates
+    FROM (SELECT lower(email) AS email_lower, string_agg(id::text, ', ' ORDER BY id) AS ids
+          FROM users
+          WHERE email IS NOT NULL
+          GROUP BY lower(email)
+          HAVING count(*) > 1) d;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'users.email has case-variant duplicates, resolve them before migrating: %', duplicates;
+    END IF;
+END $$;
+
+-- Thay index thường của V2 bằng unique index trên lower(email)
+DROP INDEX IF EXISTS idx_users_email_lower;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_email_lower ON users (lower(email));
@@ -0,0 +1,4 @@
+-- Bỏ cột OTP dạng rõ của các bản cài cũ. OTP chưa có token_hash không dùng được nữa: xóa luôn,
+-- user yêu cầu gửi lại OTP (hạn OTP chỉ vài phút)
+DELETE FROM verify_token WHERE token_hash IS NULL;
+ALTER TABLE verify_token DROP COLUMN IF EXISTS token;
@@ -0,0 +1,7 @@
+-- Hibernate (optimizer pooled, allocationSize 50) coi giá trị nextval là đầu trên của khối id
+-- [giá trị - 49, giá trị]. V3 đặt nextval = max(id) + 1 nên khối đầu tiên trùng các id đã có.
+-- Đặt lại để khối tiếp theo bắt đầu sau cả max(id) lẫn các khối đã cấp cho instance đang chạy.
+SELECT setval('verify_token_seq',
+              greatest((SELECT coalesce(max(id), 0) FROM verify_token),
+                       (SELECT last_value FROM verify_token_seq)) + 50,
+              false);
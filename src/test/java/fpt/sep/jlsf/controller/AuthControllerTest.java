@@ -16,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -42,7 +43,7 @@ class AuthControllerTest {
 
     @Test
     void testRegister() {
-        RegisterDTO registerDTO = new RegisterDTO("phan", "email@example.com", "123456");
+        RegisterDTO registerDTO = new RegisterDTO("email@example.com", "123456");
         ResponseEntity<ApiResponseDTO> response = authController.register(registerDTO);
 
         verify(userService).register(registerDTO);
@@ -54,19 +55,17 @@ class AuthControllerTest {
     @Test
     void testRegisterFalse() {
         //  input
-        RegisterDTO badDto = new RegisterDTO("phan", "email", "123456");
+        RegisterDTO badDto = new RegisterDTO("email", "123456");
 
         // 2. Stub for userService.register(...) throw IllegalArgumentException
         doThrow(new IllegalArgumentException("Email invalid"))
                 .when(userService).register(badDto);
 
-        // 3. call controller
-        ResponseEntity<ApiResponseDTO> response = authController.register(badDto);
+        // 3. call controller: lỗi được GlobalExceptionHandler chuyển thành response
+        assertThrows(IllegalArgumentException.class, () -> authController.register(badDto));
 
-        // 4. Verify & Assert
+        // 4. Verify
         verify(userService).register(badDto);
-        assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        assertEquals("Email invalid", response.getBody().message());
     }
 }
 
@@ -0,0 +1,171 @@
+package fpt.sep.jlsf.repository;
+
+import fpt.sep.apjf.ApjfApplication;
+import fpt.sep.apjf.entity.Authority;
+import fpt.sep.apjf.entity.EmailOutbox;
+import fpt.sep.apjf.entity.EmailOutbox.OutboxStatus;
+import fpt.sep.apjf.entity.User;
+import fpt.sep.apjf.entity.VerifyToken;
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.repository.EmailOutboxRepository;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.repository.VerifyTokenRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs each repository query against PostgreSQL with the Flyway schema and checks, from the
+ * per-transaction scan statistics, that it was planned with index scans only. Sequential scans are
+ * disabled for the transaction, so the planner only falls back to one when no index fits the query.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ContextConfiguration(classes = ApjfApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryIndexUsageTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VerifyTokenRepository verifyTokenRepository;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        Authority role = new Authority(null, "ROLE_USER");
+        entityManager.persist(role);
+        user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("hash");
+        user.setEnabled(true);
+        user.setAuthorities(List.of(role));
+        entityManager.persist(user);
+
+        LocalDateTime now = LocalDateTime.now();
+        entityManager.persist(VerifyToken.builder()
+                .user(user)
+                .type(VerifyTokenType.REGISTRATION)
+                .tokenHash(new byte[32])
+                .requestedTime(now)
+                .expirationTime(now.plusMinutes(10))
+                .build());
+        entityManager.persist(EmailOutbox.builder()
+                .idempotencyKey("key-1")
+                .recipient(user.getEmail())
+                .type(VerifyTokenType.REGISTRATION)
+                .status(OutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void userQueries_shouldUseIndexes() {
+        assertIndexOnly("findByEmail", () -> userRepository.findByEmail("Alice@Example.com"));
+        assertIndexOnly("existsByEmail", () -> userRepository.existsByEmail("alice@example.com"));
+        assertIndexOnly("existsByUsername", () -> userRepository.existsByUsername("alice"));
+        assertIndexOnly("findByUsername", () -> userRepository.findByUsername("alice"));
+        assertIndexOnly("findLoginRowsByEmail", () -> userRepository.findLoginRowsByEmail("alice@example.com"));
+        assertIndexOnly("findLoginRowsByUsername", () -> userRepository.findLoginRowsByUsername("alice"));
+        assertIndexOnly("findLoginRowsById", () -> userRepository.findLoginRowsById(user.getId()));
+        assertIndexOnly("findSummariesAfter", () -> userRepository.findSummariesAfter(0, Limit.of(50)));
+        assertIndexOnly("findSummariesByEmailAfter",
+                () -> userRepository.findSummariesByEmailAfter("example", 0, Limit.of(50)));
+        assertIndexOnly("findSummariesByRoleAfter",
+                () -> userRepository.findSummariesByRoleAfter("ROLE_USER", 0, Limit.of(50)));
+        assertIndexOnly("findSummariesByRoleAndEmailAfter",
+                () -> userRepository.findSummariesByRoleAndEmailAfter("ROLE_USER", "example", 0, Limit.of(50)));
+        assertIndexOnly("findRolesByUserIdIn", () -> userRepository.findRolesByUserIdIn(List.of(user.getId())));
+        assertIndexOnly("enableById", () -> userRepository.enableById(user.getId()));
+        assertIndexOnly("updatePassword", () -> userRepository.updatePassword(user.getId(), "hash2"));
+    }
+
+    @Test
+    void verifyTokenQueries_shouldUseIndexes() {
+        assertIndexOnly("findTopByUserIdAndTypeOrderByRequestedTimeDesc",
+                () -> verifyTokenRepository.findTopByUserIdAndTypeOrderByRequestedTimeDesc(
+                        user.getId(), VerifyTokenType.REGISTRATION));
+        assertIndexOnly("deleteByUserIdAndType",
+                () -> verifyTokenRepository.deleteByUserIdAndType(user.getId(), VerifyTokenType.RESET_PASSWORD));
+        assertIndexOnly("deleteByTypeAndUserIdIn",
+                () -> verifyTokenRepository.deleteByTypeAndUserIdIn(VerifyTokenType.RESET_PASSWORD, List.of(user.getId())));
+        assertIndexOnly("deleteExpiredBatch",
+                () -> verifyTokenRepository.deleteExpiredBatch(LocalDateTime.now(), 100));
+    }
+
+    @Test
+    void outboxQueries_shouldUseIndexes() {
+        assertIndexOnly("findDueForUpdate", () -> emailOutboxRepository.findDueForUpdate(
+                OutboxStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, 50)));
+        assertIndexOnly("deleteByStatusAndCreatedAtBefore", () -> emailOutboxRepository.deleteByStatusAndCreatedAtBefore(
+                OutboxStatus.SENT, LocalDateTime.now().minusDays(7)));
+    }
+
+    private void assertIndexOnly(String query, Runnable call) {
+        Map<String, long[]> before = scans();
+        call.run();
+        entityManager.flush();
+        entityManager.clear();
+        Map<String, long[]> after = scans();
+
+        long indexScans = 0;
+        for (Map.Entry<String, long[]> entry : after.entrySet()) {
+            long[] previous = before.getOrDefault(entry.getKey(), new long[2]);
+            assertEquals(previous[0], entry.getValue()[0],
+                    query + " did a sequential scan on " + entry.getKey());
+            indexScans += entry.getValue()[1] - previous[1];
+        }
+        assertTrue(indexScans > 0, query + " did not use any index");
+    }
+
+    // Thống kê của transaction hiện tại, cập nhật ngay sau mỗi câu lệnh
+    private Map<String, long[]> scans() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT relname, coalesce(seq_scan, 0), coalesce(idx_scan, 0) "
+                        + "FROM pg_stat_xact_user_tables WHERE relname <> 'flyway_schema_history'").getResultList();
+        Map<String, long[]> scans = new HashMap<>();
+        for (Object[] row : rows) {
+            scans.put((String) row[0], new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+        return scans;
+    }
+}
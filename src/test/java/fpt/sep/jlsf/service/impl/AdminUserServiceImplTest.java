@@ -0,0 +1,86 @@
+package fpt.sep.jlsf.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.dto.UserPageDTO;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.repository.UserRoleRow;
+import fpt.sep.apjf.repository.UserSummaryRow;
+import fpt.sep.apjf.service.impl.AdminUserServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminUserServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private AdminUserServiceImpl service(int exportBatchSize) {
+        return new AdminUserServiceImpl(userRepository, new ObjectMapper(), 200, exportBatchSize);
+    }
+
+    private static List<UserSummaryRow> rows(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> new UserSummaryRow(id, "user" + id, "user" + id + "@example.com", true, true))
+                .toList();
+    }
+
+    @Test
+    void search_shouldReturnCursorWhenMoreRowsExist() {
+        when(userRepository.findSummariesByEmailAfter("example", 10L, Limit.of(3))).thenReturn(rows(11, 13));
+        when(userRepository.findRolesByUserIdIn(List.of(11L, 12L, 13L)))
+                .thenReturn(List.of(new UserRoleRow(11L, "ROLE_USER"), new UserRoleRow(11L, "ROLE_ADMIN")));
+
+        UserPageDTO page = service(1000).search(null, " example ", 10L, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(12L, page.nextCursor());
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_USER"), page.items().get(0).roles());
+        assertEquals(List.of(), page.items().get(1).roles());
+    }
+
+    @Test
+    void search_lastPage_shouldHaveNoCursor() {
+        when(userRepository.findSummariesByRoleAfter("ROLE_ADMIN", 0L, Limit.of(51))).thenReturn(rows(1, 2));
+        when(userRepository.findRolesByUserIdIn(anyCollection())).thenReturn(List.of());
+
+        UserPageDTO page = service(1000).search("ROLE_ADMIN", "", 0L, 50);
+
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void search_shouldRejectOversizedPage() {
+        assertThrows(IllegalArgumentException.class, () -> service(1000).search(null, null, 0L, 201));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void export_shouldWalkKeysetBatchesAsNdjson() throws Exception {
+        when(userRepository.findSummariesAfter(0L, Limit.of(2))).thenReturn(rows(1, 2));
+        when(userRepository.findSummariesAfter(2L, Limit.of(2))).thenReturn(rows(3, 3));
+        when(userRepository.findRolesByUserIdIn(anyCollection())).thenReturn(List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service(2).export(null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].contains("\"id\":3"));
+        verify(userRepository, never()).findSummariesAfter(eq(3L), any());
+    }
+}
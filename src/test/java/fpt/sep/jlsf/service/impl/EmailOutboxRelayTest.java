@@ -0,0 +1,159 @@
+package fpt.sep.jlsf.service.impl;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import fpt.sep.apjf.entity.EmailOutbox;
+import fpt.sep.apjf.entity.EmailOutbox.OutboxStatus;
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.repository.EmailOutboxRepository;
+import fpt.sep.apjf.service.impl.EmailOutboxRelay;
+import fpt.sep.apjf.utils.EmailTemplateEngine;
+import fpt.sep.apjf.utils.EmailUtils;
+import fpt.sep.apjf.utils.SmtpConnectionPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxRelayTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailOutboxRelay relayTo(int port) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        return new EmailOutboxRelay(emailOutboxRepository, new EmailUtils(sender, new EmailTemplateEngine(
+                        "https://apjf.test/auth/verify-account", "https://apjf.test/auth/reset-password", "vi")),
+                new SmtpConnectionPool(sender, new SimpleMeterRegistry(), 1, Duration.ofSeconds(60)),
+                new TransactionTemplate(transactionManager), 50, 3, Duration.ofSeconds(30), Duration.ofDays(7),
+                Duration.ofMinutes(2));
+    }
+
+    private static EmailOutbox pending(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        return EmailOutbox.builder()
+                .idempotencyKey(key)
+                .recipient("user@example.com")
+                .type(VerifyTokenType.REGISTRATION)
+                .locale("vi")
+                .otp("123456")
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+
+    @Test
+    void relay_shouldSendPendingEmailAndMarkSent() throws Exception {
+        EmailOutbox message = pending("key-1");
+        when(emailOutboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(message));
+
+        relayTo(ServerSetupTest.SMTP.getPort()).relay();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals("key-1", received[0].getHeader(EmailUtils.IDEMPOTENCY_HEADER)[0]);
+        assertEquals(OutboxStatus.SENT, message.getStatus());
+        assertNull(message.getOtp());
+        // Một lần khi nhận lô, một lần khi ghi kết quả: hai transaction riêng, SMTP ở giữa
+        verify(emailOutboxRepository, times(2)).saveAll(List.of(message));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void relay_shouldSendWholeBatchOverOneConnection() throws Exception {
+        EmailOutbox first = pending("key-a");
+        EmailOutbox second = pending("key-b");
+        second.setType(VerifyTokenType.RESET_PASSWORD);
+        second.setLocale("en");
+        when(emailOutboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(first, second));
+
+        relayTo(ServerSetupTest.SMTP.getPort()).relay();
+
+        assertEquals(2, greenMail.getReceivedMessages().length);
+        assertEquals("Reset Password", greenMail.getReceivedMessages()[1].getSubject());
+        assertEquals(OutboxStatus.SENT, first.getStatus());
+        assertEquals(OutboxStatus.SENT, second.getStatus());
+    }
+
+    @Test
+    void relay_shouldBackOffWhenSmtpUnavailable() {
+        EmailOutbox message = pending("key-2");
+        when(emailOutboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(message));
+
+        relayTo(1).relay();
+
+        assertEquals(OutboxStatus.PENDING, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(20)));
+        assertEquals("123456", message.getOtp());
+    }
+
+    @Test
+    void relay_shouldGiveUpAfterMaxAttempts() {
+        EmailOutbox message = pending("key-3");
+        message.setAttempts(2);
+        when(emailOutboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(message));
+
+        relayTo(1).relay();
+
+        assertEquals(OutboxStatus.FAILED, message.getStatus());
+        assertNull(message.getOtp());
+    }
+
+    @Test
+    void relay_shouldDropExpiredOtpWithoutSending() {
+        EmailOutbox message = pending("key-4");
+        message.setCreatedAt(LocalDateTime.now().minusMinutes(11));
+        when(emailOutboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(message));
+
+        relayTo(ServerSetupTest.SMTP.getPort()).relay();
+
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(OutboxStatus.FAILED, message.getStatus());
+        assertNull(message.getOtp());
+    }
+
+    @Test
+    void relay_shouldNotRetryPastOtpExpiry() {
+        EmailOutbox message = pending("key-5");
+        message.setCreatedAt(LocalDateTime.now().minusMinutes(9).minusSeconds(50));
+        when(emailOutboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(message));
+
+        relayTo(1).relay();
+
+        assertEquals(1, message.getAttempts());
+        assertEquals(OutboxStatus.FAILED, message.getStatus());
+        assertNull(message.getOtp());
+    }
+}
@@ -0,0 +1,67 @@
+package fpt.sep.jlsf.service.impl;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.service.VerifyTokenStore.StoredToken;
+import fpt.sep.apjf.service.impl.InMemoryVerifyTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryVerifyTokenStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryVerifyTokenStore store = new InMemoryVerifyTokenStore(meterRegistry, Duration.ofMillis(10));
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private static StoredToken token(long userId, VerifyTokenType type, String otp, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        return new StoredToken(userId, type, otp.getBytes(StandardCharsets.UTF_8), now, now.plus(ttl));
+    }
+
+    @Test
+    void replace_shouldKeepOnlyLatestTokenPerUserAndType() {
+        store.replace(token(1L, VerifyTokenType.REGISTRATION, "111111", Duration.ofMinutes(10)));
+        store.replace(token(1L, VerifyTokenType.REGISTRATION, "222222", Duration.ofMinutes(10)));
+        store.replace(token(1L, VerifyTokenType.RESET_PASSWORD, "333333", Duration.ofMinutes(10)));
+
+        assertArrayEquals("222222".getBytes(StandardCharsets.UTF_8),
+                store.find(1L, VerifyTokenType.REGISTRATION).orElseThrow().tokenHash());
+        assertArrayEquals("333333".getBytes(StandardCharsets.UTF_8),
+                store.find(1L, VerifyTokenType.RESET_PASSWORD).orElseThrow().tokenHash());
+        assertTrue(store.find(2L, VerifyTokenType.REGISTRATION).isEmpty());
+    }
+
+    @Test
+    void remove_shouldDeleteToken() {
+        store.replace(token(1L, VerifyTokenType.REGISTRATION, "111111", Duration.ofMinutes(10)));
+
+        store.remove(1L, VerifyTokenType.REGISTRATION);
+
+        assertTrue(store.find(1L, VerifyTokenType.REGISTRATION).isEmpty());
+    }
+
+    @Test
+    void timingWheel_shouldEvictExpiredTokens() throws InterruptedException {
+        store.replace(token(1L, VerifyTokenType.REGISTRATION, "111111", Duration.ofMillis(50)));
+        store.replace(token(2L, VerifyTokenType.REGISTRATION, "222222", Duration.ofMinutes(10)));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (meterRegistry.get("otp.store.size").gauge().value() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1.0, meterRegistry.get("otp.store.size").gauge().value());
+        assertTrue(store.find(1L, VerifyTokenType.REGISTRATION).isEmpty());
+        assertTrue(store.find(2L, VerifyTokenType.REGISTRATION).isPresent());
+    }
+}
@@ -0,0 +1,200 @@
+package fpt.sep.jlsf.service.impl;
+
+import fpt.sep.apjf.dto.LoginResponse;
+import fpt.sep.apjf.entity.RefreshToken;
+import fpt.sep.apjf.repository.RefreshTokenRepository;
+import fpt.sep.apjf.repository.RefreshTokenRevocationRepository;
+import fpt.sep.apjf.service.impl.RefreshTokenRevocations;
+import fpt.sep.apjf.service.impl.RefreshTokenServiceImpl;
+import fpt.sep.apjf.service.impl.UserCache;
+import fpt.sep.apjf.service.impl.UserCache.CachedUser;
+import fpt.sep.apjf.utils.AccessTokenDenylist;
+import fpt.sep.apjf.utils.JwtClaimsView;
+import fpt.sep.apjf.utils.JwtUtils;
+import fpt.sep.apjf.utils.VerifiedTokenCache;
+import fpt.sep.apjf.utils.VerifiedTokenCache.CachedAuthentication;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceImplTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+    @Mock
+    private RefreshTokenRevocationRepository revocationRepository;
+    @Mock
+    private RefreshTokenRevocations revocations;
+    @Mock
+    private AccessTokenDenylist accessTokenDenylist;
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    @Mock
+    private UserCache userCache;
+    @Mock
+    private JwtUtils jwtUtils;
+
+    private RefreshTokenServiceImpl service;
+    private final CachedUser user = new CachedUser(7L, "alice", "a@example.com", "hash", true, List.of("ROLE_USER"), List.of());
+    private RefreshToken family;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        service = new RefreshTokenServiceImpl(refreshTokenRepository, revocationRepository, revocations,
+                accessTokenDenylist, verifiedTokenCache, userCache, jwtUtils, mock(TransactionTemplate.class),
+                new SimpleMeterRegistry(), Duration.ofDays(14), Base64.getEncoder().encodeToString(new byte[32]));
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        when(jwtUtils.generateToken(eq(user), eq(7L), any())).thenReturn("first");
+        LoginResponse session = service.openSession(user);
+        token = session.refreshToken();
+        verify(refreshTokenRepository).save(saved.capture());
+        family = saved.getValue();
+        // Access token đầu tiên mang sid = family
+        verify(jwtUtils).generateToken(user, 7L, family.getFamilyId());
+        assertEquals("first", session.jwtToken());
+    }
+
+    @Test
+    void refresh_shouldRotateWithoutPasswordCheck() {
+        when(refreshTokenRepository.findById(family.getFamilyId())).thenReturn(Optional.of(family));
+        when(userCache.findById(7L)).thenReturn(Optional.of(user));
+        when(jwtUtils.generateToken(user, 7L, family.getFamilyId())).thenReturn("access");
+        when(refreshTokenRepository.rotate(eq(family.getFamilyId()), eq(0), any(), any(), any())).thenReturn(1);
+
+        LoginResponse response = service.refresh(token);
+
+        assertEquals("access", response.jwtToken());
+        assertNotEquals(token, response.refreshToken());
+        verify(revocations, never()).revoke(any(), any(), any());
+    }
+
+    private static String forge(UUID familyId, int generation) {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + Integer.BYTES + 32)
+                .putLong(familyId.getMostSignificantBits())
+                .putLong(familyId.getLeastSignificantBits())
+                .putInt(generation);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    @Test
+    void olderGeneration_shouldRevokeWholeFamily() {
+        family.setGeneration(1);
+        when(refreshTokenRepository.findById(family.getFamilyId())).thenReturn(Optional.of(family));
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(token));
+
+        verify(revocations).revoke(family.getFamilyId(), 7L, family.getExpiresAt());
+        verify(refreshTokenRepository).deleteById(family.getFamilyId());
+        verify(accessTokenDenylist).denySession(family.getFamilyId(), 7L);
+    }
+
+    @Test
+    void forgedOlderGeneration_shouldBeRejectedWithoutRevoking() {
+        family.setGeneration(1);
+        when(refreshTokenRepository.findById(family.getFamilyId())).thenReturn(Optional.of(family));
+
+        // Chỉ biết sid (family id) từ access token
+        assertThrows(BadCredentialsException.class, () -> service.refresh(forge(family.getFamilyId(), 0)));
+
+        verify(revocations, never()).revoke(any(), any(), any());
+        verify(refreshTokenRepository, never()).deleteById(any());
+        verify(accessTokenDenylist, never()).denySession(any(), any());
+    }
+
+    @Test
+    void rotatedToken_shouldStillDetectReuseOfPreviousOne() {
+        when(refreshTokenRepository.findById(family.getFamilyId())).thenReturn(Optional.of(family));
+        when(userCache.findById(7L)).thenReturn(Optional.of(user));
+        when(refreshTokenRepository.rotate(eq(family.getFamilyId()), eq(0), any(), any(), any())).thenReturn(1);
+        service.refresh(token);
+        family.setGeneration(1);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(token));
+
+        verify(revocations).revoke(family.getFamilyId(), 7L, family.getExpiresAt());
+    }
+
+    @Test
+    void lostRotationRace_shouldRevokeFamily() {
+        when(refreshTokenRepository.findById(family.getFamilyId())).thenReturn(Optional.of(family));
+        when(userCache.findById(7L)).thenReturn(Optional.of(user));
+        when(refreshTokenRepository.rotate(any(), anyInt(), any(), any(), any())).thenReturn(0);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(token));
+
+        verify(revocations).revoke(eq(family.getFamilyId()), eq(7L), any());
+    }
+
+    @Test
+    void revokedFamily_shouldBeRejectedBeforeLookup() {
+        when(revocations.isRevoked(family.getFamilyId())).thenReturn(true);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(token));
+
+        verify(refreshTokenRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void tamperedSecret_shouldBeRejectedWithoutRevoking() {
+        when(refreshTokenRepository.findById(family.getFamilyId())).thenReturn(Optional.of(family));
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        assertThrows(BadCredentialsException.class, () -> service.refresh(tampered));
+        assertThrows(BadCredentialsException.class, () -> service.refresh("not-a-token"));
+
+        verify(revocations, never()).revoke(any(), any(), any());
+    }
+
+    @Test
+    void logout_shouldRevokeSessionAndItsAccessTokens() {
+        JwtClaimsView claims = new JwtClaimsView("alice", List.of("ROLE_USER"), Instant.now(),
+                Instant.now().plusSeconds(900), UUID.randomUUID(), 7L, family.getFamilyId());
+        when(verifiedTokenCache.get("access")).thenReturn(Optional.of(new CachedAuthentication(claims, List.of())));
+        when(refreshTokenRepository.findById(family.getFamilyId())).thenReturn(Optional.of(family));
+
+        service.logout("access");
+
+        verify(revocations).revoke(family.getFamilyId(), 7L, family.getExpiresAt());
+        verify(accessTokenDenylist).denySession(family.getFamilyId(), 7L);
+    }
+
+    @Test
+    void logout_withoutValidToken_shouldBeRejected() {
+        when(verifiedTokenCache.get("bad")).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> service.logout("bad"));
+        assertThrows(BadCredentialsException.class, () -> service.logout(null));
+    }
+
+    @Test
+    void revokeAll_shouldAlsoSetAccessTokenWatermark() {
+        when(refreshTokenRepository.findByUserId(7L)).thenReturn(List.of(family));
+
+        service.revokeAll(7L);
+
+        verify(refreshTokenRepository).deleteById(family.getFamilyId());
+        verify(accessTokenDenylist).revokeAllIssuedBefore(eq(7L), any(Instant.class));
+    }
+}
@@ -0,0 +1,102 @@
+package fpt.sep.jlsf.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.service.impl.TokenIntrospectionServiceImpl;
+import fpt.sep.apjf.utils.AccessTokenDenylist;
+import fpt.sep.apjf.utils.JwtClaimsView;
+import fpt.sep.apjf.utils.VerifiedTokenCache;
+import fpt.sep.apjf.utils.VerifiedTokenCache.CachedAuthentication;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenIntrospectionServiceImplTest {
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    @Mock
+    private AccessTokenDenylist accessTokenDenylist;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void introspect_shouldReportEachTokenInRequestOrder() throws Exception {
+        Instant exp = Instant.ofEpochSecond(2_000_000_000L);
+        JwtClaimsView alice = new JwtClaimsView("alice", List.of("ROLE_USER"), Instant.now(), exp);
+        JwtClaimsView bob = new JwtClaimsView("bob", List.of("ROLE_ADMIN"), Instant.now(), exp);
+        when(verifiedTokenCache.get(anyString())).thenReturn(Optional.empty());
+        when(verifiedTokenCache.get("a")).thenReturn(Optional.of(new CachedAuthentication(alice, List.of())));
+        when(verifiedTokenCache.get("b")).thenReturn(Optional.of(new CachedAuthentication(bob, List.of())));
+        when(accessTokenDenylist.isRevoked(any())).thenAnswer(inv -> inv.getArgument(0) == bob);
+
+        List<JsonNode> lines = run(Arrays.asList("a", "garbage", "b", null), 1, 2);
+
+        assertEquals(4, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i, lines.get(i).get("index").asInt());
+        }
+        assertTrue(lines.get(0).get("active").asBoolean());
+        assertEquals("alice", lines.get(0).get("subject").asText());
+        assertEquals("ROLE_USER", lines.get(0).get("roles").get(0).asText());
+        assertEquals(exp.getEpochSecond(), lines.get(0).get("expiresAt").asLong());
+        assertFalse(lines.get(1).get("active").asBoolean());
+        assertTrue(lines.get(1).get("subject").isNull());
+        assertFalse(lines.get(2).get("active").asBoolean());
+        assertTrue(lines.get(2).get("revoked").asBoolean());
+        assertFalse(lines.get(3).get("active").asBoolean());
+    }
+
+    @Test
+    void largeBatch_shouldBeSplitAcrossThreadsAndKeepOrder() throws Exception {
+        JwtClaimsView claims = new JwtClaimsView("alice", List.of(), Instant.now(), Instant.now().plusSeconds(60));
+        when(verifiedTokenCache.get(anyString())).thenReturn(Optional.of(new CachedAuthentication(claims, List.of())));
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tokens.add("t" + i);
+        }
+
+        List<JsonNode> lines = run(tokens, 16, 4);
+
+        assertEquals(500, lines.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, lines.get(i).get("index").asInt());
+        }
+        verify(verifiedTokenCache, times(500)).get(anyString());
+    }
+
+    private List<JsonNode> run(List<String> tokens, int minChunk, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            TokenIntrospectionServiceImpl service = new TokenIntrospectionServiceImpl(verifiedTokenCache,
+                    accessTokenDenylist, objectMapper, executor, new SimpleMeterRegistry(), threads, minChunk);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            service.introspect(tokens, out);
+            List<JsonNode> lines = new ArrayList<>();
+            for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+                lines.add(objectMapper.readTree(line));
+            }
+            return lines;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
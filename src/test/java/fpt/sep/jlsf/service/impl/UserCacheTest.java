@@ -0,0 +1,157 @@
+package fpt.sep.jlsf.service.impl;
+
+import fpt.sep.apjf.repository.UserLoginRow;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.service.impl.UserCache;
+import fpt.sep.apjf.service.impl.UserCache.CachedUser;
+import fpt.sep.apjf.utils.RoleRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RoleRegistry roleRegistry = RoleRegistry.of("ROLE_USER", "ROLE_ADMIN");
+
+    private UserCache cache() {
+        return new UserCache(userRepository, roleRegistry, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    private static List<UserLoginRow> user(long id, String email, String... roles) {
+        if (roles.length == 0) {
+            return List.of(new UserLoginRow(id, "user" + id, email, "hash", true, null));
+        }
+        return Arrays.stream(roles).map(role -> new UserLoginRow(id, "user" + id, email, "hash", true, role)).toList();
+    }
+
+    @Test
+    void findByEmail_shouldLoadOnceAndServeOtherKeysFromCache() {
+        UserCache cache = cache();
+        when(userRepository.findLoginRowsByEmail("a@example.com")).thenReturn(user(1, "a@example.com", "ROLE_USER"));
+
+        CachedUser first = cache.findByEmail("a@example.com").orElseThrow();
+        CachedUser second = cache.findByEmail("a@example.com").orElseThrow();
+        CachedUser byId = cache.findById(1L).orElseThrow();
+        CachedUser byUsername = cache.findByUsername("user1").orElseThrow();
+
+        assertSame(first, second);
+        assertSame(first, byId);
+        assertSame(first, byUsername);
+        assertEquals(List.of("ROLE_USER"), first.roles());
+        verify(userRepository, times(1)).findLoginRowsByEmail("a@example.com");
+        verifyNoMoreInteractions(userRepository);
+        assertEquals(3.0, meterRegistry.get("user.cache.requests").tag("result", "hit").counters().stream()
+                .mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void evict_shouldReloadOnNextLookup() {
+        UserCache cache = cache();
+        when(userRepository.findLoginRowsByEmail("a@example.com"))
+                .thenReturn(user(1, "a@example.com", "ROLE_USER"));
+
+        cache.findByEmail("a@example.com");
+        cache.evict(1L);
+        cache.findByEmail("a@example.com");
+
+        verify(userRepository, times(2)).findLoginRowsByEmail("a@example.com");
+    }
+
+    @Test
+    void authorities_shouldBeSharedBetweenUsersWithSameRoles() {
+        UserCache cache = cache();
+        when(userRepository.findLoginRowsById(1L)).thenReturn(user(1, "a@example.com", "ROLE_USER", "ROLE_ADMIN"));
+        when(userRepository.findLoginRowsById(2L)).thenReturn(user(2, "b@example.com", "ROLE_ADMIN", "ROLE_USER"));
+
+        CachedUser first = cache.findById(1L).orElseThrow();
+        CachedUser second = cache.findById(2L).orElseThrow();
+
+        assertSame(first.authorities(), second.authorities());
+        assertSame(first.roles(), second.roles());
+    }
+
+    @Test
+    void userWithoutRoles_shouldMapNullAuthorityRowToEmptyRoles() {
+        UserCache cache = cache();
+        when(userRepository.findLoginRowsByUsername("user3")).thenReturn(user(3, "c@example.com"));
+
+        CachedUser user = cache.findByUsername("user3").orElseThrow();
+
+        assertEquals(List.of(), user.roles());
+        assertTrue(user.authorities().isEmpty());
+    }
+
+    @Test
+    void unknownEmail_shouldReturnEmpty() {
+        when(userRepository.findLoginRowsByEmail("missing@example.com")).thenReturn(List.of());
+
+        assertTrue(cache().findByEmail("missing@example.com").isEmpty());
+    }
+
+    @Test
+    void loadByEmail_shouldAlwaysReadCurrentRow() {
+        UserCache cache = cache();
+        when(userRepository.findLoginRowsByEmail("a@example.com"))
+                .thenReturn(user(1, "a@example.com", "ROLE_USER"))
+                .thenReturn(List.of(new UserLoginRow(1L, "user1", "a@example.com", "new-hash", true, "ROLE_USER")));
+
+        cache.findByEmail("a@example.com");
+        CachedUser fresh = cache.loadByEmail("a@example.com").orElseThrow();
+
+        assertEquals("new-hash", fresh.password());
+        assertSame(fresh, cache.findById(1L).orElseThrow());
+        verify(userRepository, times(2)).findLoginRowsByEmail("a@example.com");
+    }
+
+    @Test
+    void evictDuringLoad_shouldNotCacheRowReadBeforeIt() {
+        UserCache cache = cache();
+        when(userRepository.findLoginRowsById(1L)).thenAnswer(invocation -> {
+            List<UserLoginRow> old = user(1, "a@example.com", "ROLE_USER");
+            // Request khác đổi mật khẩu và evict trong lúc query này đang chạy
+            cache.evict(1L);
+            return old;
+        }).thenReturn(List.of(new UserLoginRow(1L, "user1", "a@example.com", "new-hash", true, "ROLE_USER")));
+
+        assertEquals("hash", cache.findById(1L).orElseThrow().password());
+        assertEquals("new-hash", cache.findById(1L).orElseThrow().password());
+    }
+
+    @Test
+    void rowsOfSeveralUsers_shouldBeRejected() {
+        UserCache cache = cache();
+        List<UserLoginRow> rows = new ArrayList<>(user(1, "a@example.com", "ROLE_USER"));
+        rows.addAll(user(2, "A@example.com", "ROLE_ADMIN"));
+        when(userRepository.findLoginRowsByEmail("a@example.com")).thenReturn(rows);
+
+        assertThrows(IncorrectResultSizeDataAccessException.class, () -> cache.loadByEmail("a@example.com"));
+        when(userRepository.findLoginRowsById(1L)).thenReturn(user(1, "a@example.com", "ROLE_USER"));
+        assertEquals(List.of("ROLE_USER"), cache.findById(1L).orElseThrow().roles());
+    }
+
+    @Test
+    void toString_shouldNotExposePasswordHash() {
+        CachedUser user = new CachedUser(1L, "user1", "a@example.com", "$2a$10$secret", true, List.of("ROLE_USER"),
+                List.of());
+
+        assertFalse(user.toString().contains("$2a$10$secret"));
+        assertTrue(user.toString().contains("user1"));
+    }
+}
@@ -0,0 +1,70 @@
+package fpt.sep.jlsf.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.service.impl.UserImportReader;
+import fpt.sep.apjf.service.impl.UserImportReader.Format;
+import fpt.sep.apjf.service.impl.UserImportReader.Row;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportReaderTest {
+
+    @Test
+    void csv_shouldMapColumnsByHeaderAndHandleQuotes() throws Exception {
+        String csv = "\uFEFFPassword,Email,Username\n"
+                + "secret1,a@example.com,\"Nguyen, An\"\n"
+                + "\n"
+                + "\"se\"\"cret\",b@example.com,\n"
+                + "\"broken,c@example.com,x\n";
+
+        List<Row> rows = reader(csv, Format.CSV).next(10);
+
+        assertEquals(3, rows.size());
+        assertEquals("a@example.com", rows.get(0).email());
+        assertEquals("Nguyen, An", rows.get(0).username());
+        assertEquals("se\"cret", rows.get(1).password());
+        assertNull(rows.get(1).username());
+        assertNotNull(rows.get(2).error());
+    }
+
+    @Test
+    void csv_withoutRequiredColumns_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> reader("name,phone\nx,y\n", Format.CSV).next(10));
+    }
+
+    @Test
+    void ndjson_shouldReadObjectsAndFlagMalformedLines() throws Exception {
+        String ndjson = "{\"email\":\"a@example.com\",\"password\":\"secret1\",\"role\":\"ROLE_USER\"}\n"
+                + "not json\n"
+                + "{\"email\":\"b@example.com\",\"password\":\"secret2\"}\n";
+
+        List<Row> rows = reader(ndjson, Format.NDJSON).next(10);
+
+        assertEquals(3, rows.size());
+        assertEquals("ROLE_USER", rows.get(0).role());
+        assertNotNull(rows.get(1).error());
+        assertEquals(3, rows.get(2).line());
+    }
+
+    @Test
+    void skip_shouldResumeAfterCheckpointInChunks() throws Exception {
+        String csv = "email,password\na@x.io,p1\nb@x.io,p2\nc@x.io,p3\nd@x.io,p4\n";
+        UserImportReader reader = reader(csv, Format.CSV);
+
+        assertEquals(1, reader.skip(1));
+        assertEquals(List.of("b@x.io", "c@x.io"), reader.next(2).stream().map(Row::email).toList());
+        assertEquals(List.of("d@x.io"), reader.next(2).stream().map(Row::email).toList());
+        assertTrue(reader.next(2).isEmpty());
+        assertEquals(0, reader.skip(5));
+    }
+
+    private static UserImportReader reader(String content, Format format) {
+        return new UserImportReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format,
+                new ObjectMapper());
+    }
+}
@@ -0,0 +1,155 @@
+package fpt.sep.jlsf.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.entity.Authority;
+import fpt.sep.apjf.entity.UserImportJob;
+import fpt.sep.apjf.entity.UserImportJob.ImportStatus;
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.repository.AuthorityRepository;
+import fpt.sep.apjf.repository.UserIdentityRow;
+import fpt.sep.apjf.repository.UserImportJobRepository;
+import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.service.EmailOutboxService;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import fpt.sep.apjf.service.impl.UserImportReader.Format;
+import fpt.sep.apjf.service.impl.UserImportServiceImpl;
+import fpt.sep.apjf.utils.OtpHasher;
+import fpt.sep.apjf.utils.OtpUtils;
+import fpt.sep.apjf.utils.SignedOtpCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AuthorityRepository authorityRepository;
+    @Mock
+    private UserImportJobRepository jobRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private VerifyTokenStore verifyTokenStore;
+    @Mock
+    private OtpUtils otpUtils;
+    @Mock
+    private OtpHasher otpHasher;
+    @Mock
+    private SignedOtpCodec signedOtpCodec;
+    @Mock
+    private EmailOutboxService emailOutboxService;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private UserImportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(authorityRepository.findAll()).thenReturn(List.of(new Authority(1L, "ROLE_USER")));
+        when(passwordEncoder.encode(anyString())).thenAnswer(inv -> "hash-" + inv.getArgument(0));
+        when(otpUtils.generateOTP()).thenReturn("123456");
+        when(otpHasher.hash(anyLong(), eq(VerifyTokenType.REGISTRATION), eq("123456"))).thenReturn(new byte[32]);
+        service = new UserImportServiceImpl(userRepository, authorityRepository, jobRepository, jdbcTemplate,
+                transactionTemplate, verifyTokenStore, otpUtils, otpHasher, signedOtpCodec, emailOutboxService,
+                passwordEncoder, Runnable::run, new ObjectMapper(), new SimpleMeterRegistry(), 100,
+                Duration.ofMinutes(5), "ROLE_USER");
+    }
+
+    @Test
+    void importUsers_shouldSkipExistingAndRejectInvalidRows() throws Exception {
+        when(jobRepository.findById(any())).thenReturn(Optional.of(job(0)));
+        when(userRepository.findIdentitiesByEmailsOrUsernames(any(), any()))
+                .thenReturn(List.of(new UserIdentityRow("Taken@Example.com", "taken")));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(100L, 101L));
+        String input = """
+                {"email":"a@example.com","password":"secret1"}
+                {"email":"taken@example.com","password":"secret1"}
+                {"email":"bad","password":"secret1"}
+                {"email":"A@example.com","password":"secret1"}
+                {"email":"b@example.com","password":"123"}
+                {"email":"c@example.com","password":"secret1","role":"ROLE_ROOT"}
+                {"email":"d@example.com","password":"secret1","username":"dee"}
+                """;
+
+        service.importUsers(stream(input), Format.NDJSON, null);
+
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO users"),
+                argThat((List<Object[]> rows) -> rows.size() == 2
+                        && rows.get(0)[2].equals("hash-secret1") && rows.get(1)[1].equals("dee")));
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO user_authority"),
+                argThat((List<Object[]> rows) -> rows.size() == 2 && rows.get(1)[0].equals(101L)));
+        verify(emailOutboxService).enqueueAll(argThat(recipients -> recipients.size() == 2),
+                eq(VerifyTokenType.REGISTRATION));
+        verify(verifyTokenStore, times(2)).replace(any());
+        verify(jobRepository).advance(any(), eq(7L), eq(2L), eq(2L), eq(3L), any());
+        verify(jobRepository).finish(any(), eq(ImportStatus.COMPLETED), isNull(), any());
+        // Email đã tồn tại thì không tốn công băm mật khẩu
+        verify(passwordEncoder, times(2)).encode(anyString());
+    }
+
+    @Test
+    void resume_shouldSkipRecordsBeforeCheckpoint() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(jobRepository.claim(eq(jobId), any(), any())).thenReturn(1);
+        when(jobRepository.findById(jobId)).thenReturn(Optional.of(job(2)));
+        when(userRepository.findIdentitiesByEmailsOrUsernames(any(), any())).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1))).thenReturn(List.of(300L));
+        String input = """
+                {"email":"a@example.com","password":"secret1"}
+                {"email":"b@example.com","password":"secret1"}
+                {"email":"c@example.com","password":"secret1"}
+                """;
+
+        service.importUsers(stream(input), Format.NDJSON, jobId);
+
+        verify(jobRepository).advance(eq(jobId), eq(1L), eq(1L), eq(0L), eq(0L), any());
+        verify(passwordEncoder, times(1)).encode("secret1");
+    }
+
+    private static UserImportJob job(long processedRows) {
+        LocalDateTime now = LocalDateTime.now();
+        return UserImportJob.builder()
+                .id(UUID.randomUUID())
+                .format(Format.NDJSON.name())
+                .status(ImportStatus.RUNNING)
+                .processedRows(processedRows)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,131 +1,271 @@
 package fpt.sep.jlsf.service.impl;
 
 import fpt.sep.apjf.dto.LoginDTO;
+import fpt.sep.apjf.dto.LoginResponse;
 import fpt.sep.apjf.dto.RegisterDTO;
 import fpt.sep.apjf.entity.User;
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
 import fpt.sep.apjf.exception.AppException;
 import fpt.sep.apjf.repository.UserRepository;
+import fpt.sep.apjf.service.EmailOutboxService;
+import fpt.sep.apjf.service.RefreshTokenService;
+import fpt.sep.apjf.service.VerifyTokenStore;
+import fpt.sep.apjf.service.VerifyTokenStore.StoredToken;
+import fpt.sep.apjf.service.impl.UserCache;
+import fpt.sep.apjf.service.impl.UserCache.CachedUser;
 import fpt.sep.apjf.service.impl.UserServiceImpl;
-import fpt.sep.apjf.utils.EmailUtils;
+import fpt.sep.apjf.utils.BoundedPasswordEncoder;
+import fpt.sep.apjf.utils.OtpHasher;
 import fpt.sep.apjf.utils.OtpUtils;
-import jakarta.mail.MessagingException;
+import fpt.sep.apjf.utils.SignedOtpCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceImplTest {
 
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
     @Mock
     private UserRepository userRepository;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private VerifyTokenStore verifyTokenStore;
     @Mock
-    private EmailUtils emailUtils;
+    private PasswordEncoder passwordEncoder;
     @Mock
     private OtpUtils otpUtils;
+    @Mock
+    private UserCache userCache;
+    @Mock
+    private EmailOutboxService emailOutboxService;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    private final OtpHasher otpHasher = new OtpHasher(KEY);
+    private final CachedUser user = new CachedUser(1L, "phan", "email@example.com", "hashed", true,
+            List.of("ROLE_USER"), List.of());
 
-    @InjectMocks
     private UserServiceImpl userService;
 
+    @BeforeEach
+    void setUp() {
+        userService = service(new SignedOtpCodec(Set.of(), ""));
+    }
+
+    private UserServiceImpl service(SignedOtpCodec signedOtpCodec) {
+        return new UserServiceImpl(userRepository, verifyTokenStore, passwordEncoder, otpUtils, otpHasher,
+                signedOtpCodec, userCache, emailOutboxService, refreshTokenService);
+    }
+
+    private StoredToken storedOtp(VerifyTokenType type, String otp, LocalDateTime expiresAt) {
+        return new StoredToken(1L, type, otpHasher.hash(1L, type, otp), expiresAt.minusMinutes(10), expiresAt);
+    }
+
     @Test
-    void register_shouldSaveUserAndSendEmail() throws MessagingException {
-        RegisterDTO dto = new RegisterDTO("phan", "email@example.com", "123456");
-        when(otpUtils.generateOTP()).thenReturn("123456");
+    void register_shouldSaveUserAndQueueOtpEmail() {
+        RegisterDTO dto = new RegisterDTO("email@example.com", "123456");
+        when(passwordEncoder.encode("123456")).thenReturn("hashed");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        when(otpUtils.generateOTP()).thenReturn("654321");
 
         userService.register(dto);
 
-        verify(emailUtils).sendOtpEmail(dto.email(), "123456");
-        verify(userRepository).save(any(User.class));
+        ArgumentCaptor<StoredToken> token = ArgumentCaptor.forClass(StoredToken.class);
+        verify(verifyTokenStore).replace(token.capture());
+        assertTrue(otpHasher.matches(token.getValue().tokenHash(), 1L, VerifyTokenType.REGISTRATION, "654321"));
+        verify(emailOutboxService).enqueue("email@example.com", "654321", VerifyTokenType.REGISTRATION);
+    }
+
+    @Test
+    void register_shouldRejectExistingEmail() {
+        when(userRepository.existsByEmail("email@example.com")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.register(new RegisterDTO("email@example.com", "123456")));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void login_shouldCheckCurrentHashAndOpenSession() {
+        LoginDTO dto = new LoginDTO("email@example.com", "password");
+        LoginResponse session = new LoginResponse("phan", List.of("ROLE_USER"), "access", "refresh");
+        when(userCache.loadByEmail(dto.email())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("password", "hashed")).thenReturn(true);
+        when(refreshTokenService.openSession(user)).thenReturn(session);
+
+        assertSame(session, userService.login(dto));
+        // Không xác thực bằng bản cache
+        verify(userCache, never()).findByEmail(any());
+        verify(userRepository, never()).updatePassword(any(), any());
     }
 
     @Test
-    void login_shouldReturnSuccessMessage() {
+    void login_shouldRehashOutdatedHash() {
         LoginDTO dto = new LoginDTO("email@example.com", "password");
-        User user = new User();
-        user.setEmail(dto.email());
-        user.setPassword("hashed");
-        user.setEnabled(true);
+        when(userCache.loadByEmail(dto.email())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("password", "hashed")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("hashed")).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenReturn("rehashed");
 
-        when(userRepository.findByEmail(dto.email())).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(dto.password(), user.getPassword())).thenReturn(true);
+        userService.login(dto);
 
-        String result = userService.login(dto);
-        assertEquals("Login successful", result);
+        verify(userRepository).updatePassword(1L, "rehashed");
+        verify(userCache).evict(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void login_shouldSkipRehashWhenHashingPoolIsSaturated() throws Exception {
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        // matches chạy được, sau đó pool đầy: encode để băm lại bị từ chối
+        when(executor.submit(any(Callable.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        invocation.<Callable<Object>>getArgument(0).call()))
+                .thenThrow(new TaskRejectedException("saturated"));
+        when(delegate.matches("password", "hashed")).thenReturn(true);
+        when(delegate.upgradeEncoding("hashed")).thenReturn(true);
+        UserServiceImpl bounded = new UserServiceImpl(userRepository, verifyTokenStore,
+                new BoundedPasswordEncoder(delegate, executor, new SimpleMeterRegistry(), 1), otpUtils, otpHasher,
+                new SignedOtpCodec(Set.of(), ""), userCache, emailOutboxService, refreshTokenService);
+        LoginDTO dto = new LoginDTO("email@example.com", "password");
+        LoginResponse session = new LoginResponse("phan", List.of("ROLE_USER"), "access", "refresh");
+        when(userCache.loadByEmail(dto.email())).thenReturn(Optional.of(user));
+        when(refreshTokenService.openSession(user)).thenReturn(session);
+
+        assertSame(session, bounded.login(dto));
+        verify(delegate, never()).encode(any());
+        verify(userRepository, never()).updatePassword(any(), any());
     }
 
     @Test
     void login_shouldFailIfPasswordWrong() {
         LoginDTO dto = new LoginDTO("email@example.com", "wrongpass");
-        User user = new User();
-        user.setEmail(dto.email());
-        user.setPassword("correctHash");
-        user.setEnabled(true);
-
-        when(userRepository.findByEmail(dto.email())).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(dto.password(), user.getPassword())).thenReturn(false);
+        when(userCache.loadByEmail(dto.email())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("wrongpass", "hashed")).thenReturn(false);
 
-        String result = userService.login(dto);
-        assertEquals("Login failed", result);
+        assertThrows(BadCredentialsException.class, () -> userService.login(dto));
+        verify(refreshTokenService, never()).openSession(any());
     }
 
     @Test
-    void resetPassword_shouldEncodeAndSave() {
-        User user = new User();
-        user.setEmail("email@example.com");
+    void login_shouldFailIfUserUnknown() {
+        when(userCache.loadByEmail("none@example.com")).thenReturn(Optional.empty());
 
-        when(userRepository.findByEmail("email@example.com")).thenReturn(Optional.of(user));
-        when(passwordEncoder.encode("newpass")).thenReturn("hashed");
+        assertThrows(BadCredentialsException.class,
+                () -> userService.login(new LoginDTO("none@example.com", "password")));
+    }
+
+    @Test
+    void resetPassword_shouldEncodeSaveAndRevokeSessions() {
+        when(userCache.findByEmail("email@example.com")).thenReturn(Optional.of(user));
+        when(verifyTokenStore.find(1L, VerifyTokenType.RESET_PASSWORD))
+                .thenReturn(Optional.of(storedOtp(VerifyTokenType.RESET_PASSWORD, "123456",
+                        LocalDateTime.now().plusMinutes(5))));
+        when(passwordEncoder.encode("newpass")).thenReturn("newhash");
 
-        userService.resetPassword("email@example.com", "newpass");
+        userService.resetPassword("email@example.com", "123456", "newpass");
 
-        assertEquals("hashed", user.getPassword());
-        assertTrue(user.isEnabled());
-        verify(userRepository).save(user);
+        verify(userRepository).updatePassword(1L, "newhash");
+        verify(verifyTokenStore).remove(1L, VerifyTokenType.RESET_PASSWORD);
+        verify(userCache).evict(1L);
+        verify(refreshTokenService).revokeAll(1L);
     }
 
     @Test
-    void checkPassword_shouldReturnTrueIfMatch() {
-        User user = new User();
-        user.setUsername("phan");
-        user.setPassword("hash");
+    void resetPassword_shouldRejectWrongOrExpiredOtp() {
+        when(userCache.findByEmail("email@example.com")).thenReturn(Optional.of(user));
+        when(verifyTokenStore.find(1L, VerifyTokenType.RESET_PASSWORD))
+                .thenReturn(Optional.of(storedOtp(VerifyTokenType.RESET_PASSWORD, "123456",
+                        LocalDateTime.now().plusMinutes(5))))
+                .thenReturn(Optional.of(storedOtp(VerifyTokenType.RESET_PASSWORD, "123456",
+                        LocalDateTime.now().minusMinutes(1))));
 
-        when(userRepository.findByUsername("phan")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches("plain", "hash")).thenReturn(true);
-
-        assertTrue(userService.checkPassword("phan", "plain"));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.resetPassword("email@example.com", "000000", "newpass"));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.resetPassword("email@example.com", "123456", "newpass"));
+        verify(userRepository, never()).updatePassword(any(), any());
+        verify(refreshTokenService, never()).revokeAll(any());
     }
 
     @Test
-    void checkPassword_shouldReturnFalseIfNotMatch() {
-        when(userRepository.findByUsername("phan")).thenReturn(Optional.empty());
-        assertFalse(userService.checkPassword("phan", "wrong"));
+    void resetPassword_withSignedCode_shouldOnlyChangeCurrentHashOnce() {
+        UserServiceImpl signed = service(new SignedOtpCodec(Set.of(VerifyTokenType.RESET_PASSWORD), KEY));
+        when(userCache.findByEmail("email@example.com")).thenReturn(Optional.of(user));
+        ArgumentCaptor<String> code = ArgumentCaptor.forClass(String.class);
+
+        signed.forgotPassword("email@example.com");
+        verify(emailOutboxService).enqueue(eq("email@example.com"), code.capture(), eq(VerifyTokenType.RESET_PASSWORD));
+        verify(verifyTokenStore, never()).replace(any());
+
+        when(passwordEncoder.encode("newpass")).thenReturn("newhash");
+        when(userRepository.updatePasswordIfCurrent(1L, "hashed", "newhash")).thenReturn(1).thenReturn(0);
+
+        signed.resetPassword("email@example.com", code.getValue(), "newpass");
+        verify(refreshTokenService).revokeAll(1L);
+
+        // Mã đã dùng: hash trong DB đã đổi
+        assertThrows(IllegalArgumentException.class,
+                () -> signed.resetPassword("email@example.com", code.getValue(), "newpass"));
+        verify(refreshTokenService, times(1)).revokeAll(1L);
     }
 
     @Test
     void forgotPassword_shouldThrowIfUserNotFound() {
-        when(userRepository.findByEmail("none@example.com")).thenReturn(Optional.empty());
+        when(userCache.findByEmail("none@example.com")).thenReturn(Optional.empty());
+
         assertThrows(AppException.class, () -> userService.forgotPassword("none@example.com"));
+        verify(emailOutboxService, never()).enqueue(any(), any(), any());
     }
 
     @Test
     void verifyAccount_shouldEnableUserIfOtpCorrect() {
-        User user = new User();
-        user.setOtp("123456");
-        user.setExpirationTime(java.time.LocalDateTime.now());
-
-        when(userRepository.findByEmail("email@example.com")).thenReturn(Optional.of(user));
+        when(userCache.findByEmail("email@example.com")).thenReturn(Optional.of(user));
+        when(verifyTokenStore.find(1L, VerifyTokenType.REGISTRATION))
+                .thenReturn(Optional.of(storedOtp(VerifyTokenType.REGISTRATION, "123456",
+                        LocalDateTime.now().plusMinutes(5))));
 
         assertDoesNotThrow(() -> userService.verifyAccount("email@example.com", "123456"));
-        assertTrue(user.isEnabled());
-        verify(userRepository).save(user);
+
+        verify(userRepository).enableById(1L);
+        verify(userCache).evict(1L);
+        verify(verifyTokenStore).remove(1L, VerifyTokenType.REGISTRATION);
+    }
+
+    @Test
+    void verifyAccount_shouldRejectExpiredOtp() {
+        when(userCache.findByEmail("email@example.com")).thenReturn(Optional.of(user));
+        when(verifyTokenStore.find(1L, VerifyTokenType.REGISTRATION))
+                .thenReturn(Optional.of(storedOtp(VerifyTokenType.REGISTRATION, "123456",
+                        LocalDateTime.now().minusSeconds(1))));
+
+        assertThrows(AppException.class, () -> userService.verifyAccount("email@example.com", "123456"));
+        verify(userRepository, never()).enableById(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.entity.RevokedAccessToken;
+import fpt.sep.apjf.entity.UserTokenWatermark;
+import fpt.sep.apjf.repository.RevokedAccessTokenRepository;
+import fpt.sep.apjf.repository.UserTokenWatermarkRepository;
+import fpt.sep.apjf.utils.AccessTokenDenylist;
+import fpt.sep.apjf.utils.JwtClaimsView;
+import fpt.sep.apjf.utils.JwtUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccessTokenDenylistTest {
+
+    @Mock
+    private RevokedAccessTokenRepository revokedRepository;
+    @Mock
+    private UserTokenWatermarkRepository watermarkRepository;
+    @Mock
+    private JwtUtils jwtUtils;
+
+    private AccessTokenDenylist denylist;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtUtils.accessTokenTtl()).thenReturn(Duration.ofMinutes(15));
+        denylist = new AccessTokenDenylist(revokedRepository, watermarkRepository, mock(TransactionTemplate.class),
+                jwtUtils, new SimpleMeterRegistry(), 1000);
+    }
+
+    @Test
+    void deniedTokenId_shouldBeRevokedAndPersisted() {
+        UUID jti = UUID.randomUUID();
+        Instant exp = Instant.now().plusSeconds(600);
+
+        denylist.deny(jti, 7L, exp);
+
+        assertTrue(denylist.isRevoked(claims(Instant.now(), jti, 7L, null)));
+        assertFalse(denylist.isRevoked(claims(Instant.now(), UUID.randomUUID(), 7L, null)));
+        verify(revokedRepository).save(any(RevokedAccessToken.class));
+    }
+
+    @Test
+    void deniedSession_shouldRevokeEveryTokenOfTheSession() {
+        UUID sid = UUID.randomUUID();
+
+        denylist.denySession(sid, 7L);
+
+        assertTrue(denylist.isRevoked(claims(Instant.now(), UUID.randomUUID(), 7L, sid)));
+        assertFalse(denylist.isRevoked(claims(Instant.now(), UUID.randomUUID(), 7L, UUID.randomUUID())));
+    }
+
+    @Test
+    void watermark_shouldRevokeTokensIssuedBefore() {
+        Instant now = Instant.now();
+
+        denylist.revokeAllIssuedBefore(7L, now);
+
+        Instant second = now.truncatedTo(ChronoUnit.SECONDS);
+        assertTrue(denylist.isRevoked(claims(second.minusSeconds(1), UUID.randomUUID(), 7L, null)));
+        assertFalse(denylist.isRevoked(claims(second, UUID.randomUUID(), 7L, null)));
+        assertFalse(denylist.isRevoked(claims(second.minusSeconds(1), UUID.randomUUID(), 8L, null)));
+        verify(watermarkRepository).save(any(UserTokenWatermark.class));
+    }
+
+    @Test
+    void expiredEntry_shouldNotBeKept() {
+        UUID jti = UUID.randomUUID();
+
+        denylist.deny(jti, 7L, Instant.now().minusSeconds(1));
+
+        assertFalse(denylist.isRevoked(claims(Instant.now(), jti, 7L, null)));
+    }
+
+    @Test
+    void poll_shouldLoadRevocationsFromOtherInstances() {
+        UUID jti = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        when(revokedRepository.findRevokedSince(any(), any())).thenReturn(List.of(
+                new RevokedAccessToken(jti, 7L, now, now.plusMinutes(10))));
+        when(watermarkRepository.findUpdatedSince(any(), any())).thenReturn(List.of(
+                new UserTokenWatermark(9L, now, now, now.plusMinutes(15))));
+
+        denylist.poll();
+
+        assertTrue(denylist.isRevoked(claims(Instant.now(), jti, 7L, null)));
+        assertTrue(denylist.isRevoked(claims(Instant.now().minusSeconds(60), UUID.randomUUID(), 9L, null)));
+    }
+
+    private static JwtClaimsView claims(Instant issuedAt, UUID jti, Long userId, UUID sid) {
+        return new JwtClaimsView("alice", List.of("ROLE_USER"), issuedAt, issuedAt.plusSeconds(900), jti, userId, sid);
+    }
+}
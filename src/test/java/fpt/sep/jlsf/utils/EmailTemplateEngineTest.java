@@ -0,0 +1,49 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.utils.EmailTemplateEngine;
+import fpt.sep.apjf.utils.EmailTemplateEngine.RenderedEmail;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplateEngineTest {
+
+    private final EmailTemplateEngine engine = new EmailTemplateEngine(
+            "https://apjf.test/auth/verify-account", "https://apjf.test/auth/reset-password", "vi");
+
+    @Test
+    void render_shouldUseConfiguredBaseUrlAndEncodeParameters() {
+        RenderedEmail email = engine.render(VerifyTokenType.RESET_PASSWORD, "en", "a+b@example.com", "123456");
+
+        assertEquals("Reset Password", email.subject());
+        assertTrue(email.html().contains(
+                "https://apjf.test/auth/reset-password?email=a%2Bb%40example.com&amp;otp=123456"));
+        assertTrue(email.html().contains("123456"));
+        assertFalse(email.html().contains("{{"));
+    }
+
+    @Test
+    void render_shouldEscapeHtmlInValues() {
+        RenderedEmail email = engine.render(VerifyTokenType.VERIFY_EMAIL, "vi", "<x>@example.com", "1");
+
+        assertFalse(email.html().contains("<x>"));
+        assertTrue(email.html().contains("&lt;x&gt;@example.com"));
+    }
+
+    @Test
+    void resolveLanguage_shouldFallBackToDefault() {
+        assertEquals("en", engine.resolveLanguage(Locale.ENGLISH));
+        assertEquals("vi", engine.resolveLanguage(Locale.JAPANESE));
+        assertEquals("vi", engine.resolveLanguage(null));
+    }
+
+    @Test
+    void render_shouldFallBackToDefaultLanguageForUnknownLocale() {
+        RenderedEmail email = engine.render(VerifyTokenType.REGISTRATION, null, "user@example.com", "654321");
+
+        assertEquals(engine.render(VerifyTokenType.REGISTRATION, "vi", "user@example.com", "654321"), email);
+    }
+}
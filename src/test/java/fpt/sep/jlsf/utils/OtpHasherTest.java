@@ -0,0 +1,36 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.utils.OtpHasher;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpHasherTest {
+
+    private final OtpHasher otpHasher = new OtpHasher(Base64.getEncoder().encodeToString(new byte[32]));
+
+    @Test
+    void hash_shouldBeFixedSize() {
+        assertEquals(OtpHasher.HASH_LENGTH, otpHasher.hash(1L, VerifyTokenType.REGISTRATION, "123456").length);
+    }
+
+    @Test
+    void matches_shouldAcceptOnlySameOtpUserAndType() {
+        byte[] hash = otpHasher.hash(1L, VerifyTokenType.REGISTRATION, "123456");
+
+        assertTrue(otpHasher.matches(hash, 1L, VerifyTokenType.REGISTRATION, "123456"));
+        assertFalse(otpHasher.matches(hash, 1L, VerifyTokenType.REGISTRATION, "123457"));
+        assertFalse(otpHasher.matches(hash, 2L, VerifyTokenType.REGISTRATION, "123456"));
+        assertFalse(otpHasher.matches(hash, 1L, VerifyTokenType.RESET_PASSWORD, "123456"));
+        assertFalse(otpHasher.matches(null, 1L, VerifyTokenType.REGISTRATION, "123456"));
+    }
+
+    @Test
+    void missingKey_shouldFailAtStartup() {
+        assertThrows(IllegalStateException.class, () -> new OtpHasher(""));
+        assertThrows(IllegalStateException.class, () -> new OtpHasher(null));
+    }
+}
@@ -0,0 +1,53 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.utils.OtpUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpUtilsTest {
+
+    @Test
+    void generateOTP_shouldUseConfiguredLengthAndAlphabet() {
+        OtpUtils otpUtils = new OtpUtils(8, "ABC123", 0);
+
+        String otp = otpUtils.generateOTP();
+
+        assertEquals(8, otp.length());
+        assertTrue(otp.matches("[ABC123]{8}"));
+    }
+
+    @Test
+    void generateOTP_shouldKeepWorkingWhenPoolIsDrained() {
+        OtpUtils otpUtils = new OtpUtils(6, "0123456789", 16);
+        try {
+            Set<String> codes = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                String otp = otpUtils.generateOTP();
+                assertTrue(otp.matches("\\d{6}"));
+                codes.add(otp);
+            }
+            assertTrue(codes.size() > 900);
+        } finally {
+            otpUtils.destroy();
+        }
+    }
+
+    @Test
+    void validateOTP_shouldCompareWholeCode() {
+        OtpUtils otpUtils = new OtpUtils(6, "0123456789", 0);
+
+        assertTrue(otpUtils.validateOTP("123456", "123456"));
+        assertFalse(otpUtils.validateOTP("123456", "123457"));
+        assertFalse(otpUtils.validateOTP("123456", "12345"));
+        assertFalse(otpUtils.validateOTP(null, "123456"));
+    }
+
+    @Test
+    void constructor_shouldRejectDuplicateAlphabet() {
+        assertThrows(IllegalArgumentException.class, () -> new OtpUtils(6, "0012", 0));
+    }
+}
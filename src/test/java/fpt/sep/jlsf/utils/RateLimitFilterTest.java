@@ -0,0 +1,140 @@
+package fpt.sep.jlsf.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.sep.apjf.utils.InMemoryRateLimiterBackend;
+import fpt.sep.apjf.utils.RateLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new InMemoryRateLimiterBackend(Clock.fixed(Instant.ofEpochSecond(600), ZoneOffset.UTC)),
+            Set.of("/api/users/login", "/api/users/forgot-password"), Set.of("/api/tokens/introspect"),
+            5, 2, 3, Duration.ofMinutes(1), new SimpleMeterRegistry(), new ObjectMapper());
+
+    private static MockHttpServletRequest login(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret123\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void shouldLimitByEmailFromJsonBodyAndKeepBodyReadable() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse first = send(login("10.0.0.1", "a@example.com"), chain);
+        assertEquals(200, first.getStatus());
+        assertTrue(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+                .contains("a@example.com"));
+
+        send(login("10.0.0.2", "A@example.com"), new MockFilterChain());
+        MockHttpServletResponse third = send(login("10.0.0.3", "a@example.com"), new MockFilterChain());
+
+        assertEquals(429, third.getStatus());
+        assertNotNull(third.getHeader("Retry-After"));
+        assertTrue(third.getContentAsString().contains("RATE_LIMITED"));
+    }
+
+    @Test
+    void shouldLimitByIpAcrossEmails() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, send(login("10.0.0.9", "user" + i + "@example.com"), new MockFilterChain()).getStatus());
+        }
+
+        assertEquals(429, send(login("10.0.0.9", "other@example.com"), new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void shouldUseEmailRequestParameter() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/forgot-password");
+            request.setParameter("email", "b@example.com");
+            assertEquals(200, send(request, new MockFilterChain()).getStatus());
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/forgot-password");
+        request.setParameter("email", "b@example.com");
+
+        assertEquals(429, send(request, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void shouldIgnoreOtherPaths() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/register-something");
+            assertEquals(200, send(request, new MockFilterChain()).getStatus());
+        }
+    }
+
+    @Test
+    void largeDeclaredBody_shouldPassUnreadAndOnlyCountByIp() throws Exception {
+        MockHttpServletRequest request = login("10.0.0.20", "c@example.com");
+        byte[] large = new byte[16 * 1024];
+        request.setContent(large);
+        MockFilterChain chain = new MockFilterChain();
+
+        assertEquals(200, send(request, chain).getStatus());
+        assertSame(request, chain.getRequest());
+        assertEquals(large.length, chain.getRequest().getInputStream().readAllBytes().length);
+    }
+
+    @Test
+    void largeBodyWithoutContentLength_shouldBeRefused() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("application/json");
+        request.setContent(new byte[16 * 1024]);
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = send(request, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void servicePath_shouldOnlyCountByIpWithoutReadingBody() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tokens/introspect") {
+                @Override
+                public long getContentLengthLong() {
+                    return -1;
+                }
+            };
+            request.setRemoteAddr("10.0.0.9");
+            request.setContentType("application/json");
+            request.setContent(new byte[16 * 1024]);
+            MockFilterChain chain = new MockFilterChain();
+
+            assertEquals(200, send(request, chain).getStatus());
+            assertSame(request, chain.getRequest());
+        }
+        MockHttpServletRequest fourth = new MockHttpServletRequest("POST", "/api/tokens/introspect");
+        fourth.setRemoteAddr("10.0.0.9");
+
+        assertEquals(429, send(fourth, new MockFilterChain()).getStatus());
+    }
+}
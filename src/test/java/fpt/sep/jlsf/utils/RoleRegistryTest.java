@@ -0,0 +1,57 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.utils.JwtClaimsView;
+import fpt.sep.apjf.utils.JwtKeyManager;
+import fpt.sep.apjf.utils.JwtUtils;
+import fpt.sep.apjf.utils.RoleRegistry;
+import fpt.sep.apjf.utils.RoleRegistry.RoleSet;
+import io.jsonwebtoken.io.Decoders;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoleRegistryTest {
+
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItdW5pdC10ZXN0cy1vbmx5LW5vdC1mb3ItcHJvZHVjdGlvbi11c2UtMTIzNDU2Nzg5";
+
+    private final RoleRegistry registry = RoleRegistry.of("ROLE_USER", "ROLE_ADMIN", "ROLE_STAFF");
+
+    @Test
+    void encodeAndDecode_shouldRoundTrip() {
+        long bits = registry.encode(List.of("ROLE_USER", "ROLE_STAFF")).orElseThrow();
+
+        assertEquals(0b101, bits);
+        assertEquals(List.of("ROLE_USER", "ROLE_STAFF"), registry.decode(bits).roles());
+        assertTrue(registry.encode(List.of("ROLE_UNKNOWN")).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> registry.decode(1L << 10));
+    }
+
+    @Test
+    void roleSet_shouldReturnSharedInstances() {
+        RoleSet first = registry.roleSet(List.of("ROLE_USER", "ROLE_ADMIN"));
+        RoleSet second = registry.roleSet(List.of("ROLE_USER", "ROLE_ADMIN"));
+
+        assertSame(first, second);
+        assertSame(registry.authority("ROLE_USER"), first.authorities().get(0));
+        assertEquals(0b11, first.bits());
+    }
+
+    @Test
+    void compactRolesClaim_shouldReplaceRoleList() {
+        JwtUtils jwtUtils = new JwtUtils(new JwtKeyManager(SECRET), registry, 60_000, true);
+
+        String token = jwtUtils.generateTokenFromUsername(
+                User.withUsername("phan").password("x").authorities("ROLE_USER", "ROLE_ADMIN").build());
+        String payload = new String(Decoders.BASE64URL.decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        JwtClaimsView claims = jwtUtils.parseToken(token).orElseThrow();
+
+        assertTrue(payload.contains("\"rb\":3"));
+        assertFalse(payload.contains("\"roles\""));
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), claims.roles());
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), jwtUtils.getRolesFromJwtToken(token));
+    }
+}
@@ -0,0 +1,79 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.entity.VerifyToken.VerifyTokenType;
+import fpt.sep.apjf.utils.SignedOtpCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedOtpCodecTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final SignedOtpCodec codec = new SignedOtpCodec(Set.of(VerifyTokenType.RESET_PASSWORD), KEY);
+    private final Instant now = Instant.ofEpochSecond(1_800_000_000L);
+
+    @Test
+    void issuedToken_shouldVerifyForSameBinding() {
+        String token = codec.issue(VerifyTokenType.RESET_PASSWORD, 7L, "Alice@Example.com", "$2a$hash", now.plusSeconds(600));
+
+        assertEquals(28, token.length());
+        assertTrue(codec.isSignedToken(token));
+        assertTrue(codec.verify(token, VerifyTokenType.RESET_PASSWORD, 7L, "alice@example.com", "$2a$hash", now));
+    }
+
+    @Test
+    void changedPasswordHash_shouldInvalidateToken() {
+        String token = codec.issue(VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "$2a$old", now.plusSeconds(600));
+
+        assertFalse(codec.verify(token, VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "$2a$new", now));
+    }
+
+    @Test
+    void otherTypeUserOrEmail_shouldNotVerify() {
+        String token = codec.issue(VerifyTokenType.REGISTRATION, 7L, "a@example.com", "h", now.plusSeconds(600));
+
+        assertFalse(codec.verify(token, VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "h", now));
+        assertFalse(codec.verify(token, VerifyTokenType.REGISTRATION, 8L, "a@example.com", "h", now));
+        assertFalse(codec.verify(token, VerifyTokenType.REGISTRATION, 7L, "b@example.com", "h", now));
+    }
+
+    @Test
+    void expiredOrTamperedToken_shouldNotVerify() {
+        String token = codec.issue(VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "h", now.plusSeconds(600));
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertFalse(codec.verify(token, VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "h", now.plusSeconds(600)));
+        assertFalse(codec.verify(tampered, VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "h", now));
+        assertFalse(codec.verify("123456", VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "h", now));
+    }
+
+    @Test
+    void differentKey_shouldNotVerify() {
+        String token = codec.issue(VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "h", now.plusSeconds(600));
+        SignedOtpCodec other = new SignedOtpCodec(Set.of(), Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4}));
+
+        assertFalse(other.verify(token, VerifyTokenType.RESET_PASSWORD, 7L, "a@example.com", "h", now));
+    }
+
+    @Test
+    void enabledTypes_shouldFollowConfiguration() {
+        assertTrue(codec.isEnabled(VerifyTokenType.RESET_PASSWORD));
+        assertFalse(codec.isEnabled(VerifyTokenType.REGISTRATION));
+        assertFalse(codec.isSignedToken("123456"));
+    }
+
+    @Test
+    void missingKey_shouldFailOnlyWhenSigningIsEnabled() {
+        assertThrows(IllegalStateException.class, () -> new SignedOtpCodec(Set.of(VerifyTokenType.REGISTRATION), ""));
+
+        SignedOtpCodec disabled = new SignedOtpCodec(Set.of(), "");
+        String token = codec.issue(VerifyTokenType.RESET_PASSWORD, 7L, "alice@example.com", "$2a$hash", now.plusSeconds(600));
+        assertFalse(disabled.verify(token, VerifyTokenType.RESET_PASSWORD, 7L, "alice@example.com", "$2a$hash", now));
+    }
+}
@@ -0,0 +1,74 @@
+package fpt.sep.jlsf.utils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import fpt.sep.apjf.utils.SlowQueryLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SlowQueryLogTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SlowQueryLog slowQueryLog(Duration threshold) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+        return new SlowQueryLog(beanFactory.getBeanProvider(MeterRegistry.class), threshold, 1);
+    }
+
+    @Test
+    void statementsAboveThreshold_shouldBeCounted() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        Statement statement = mock(Statement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(prepared);
+        when(connection.createStatement()).thenReturn(statement);
+
+        DataSource dataSource = slowQueryLog(Duration.ZERO).wrap(target);
+        try (Connection wrapped = dataSource.getConnection()) {
+            wrapped.prepareStatement("select 1").executeQuery();
+            wrapped.prepareStatement("select 1").executeQuery();
+            wrapped.createStatement().execute("delete from verify_token");
+        }
+
+        verify(prepared, times(2)).executeQuery();
+        verify(statement).execute("delete from verify_token");
+        verify(connection).close();
+        assertEquals(3.0, meterRegistry.get("db.statements.slow").counter().count());
+    }
+
+    @Test
+    void fastStatements_shouldNotBeCounted() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(prepared);
+
+        slowQueryLog(Duration.ofMinutes(1)).wrap(target).getConnection().prepareStatement("select 1").executeUpdate();
+
+        assertNull(meterRegistry.find("db.statements.slow").counter());
+    }
+
+    @Test
+    void unwrap_shouldReachThePool() throws Exception {
+        HikariDataSource pool = new HikariDataSource();
+        DataSource dataSource = slowQueryLog(Duration.ZERO).wrap(pool);
+
+        assertTrue(dataSource.isWrapperFor(HikariDataSource.class));
+        assertSame(pool, dataSource.unwrap(HikariDataSource.class));
+        pool.close();
+    }
+}
@@ -0,0 +1,94 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.utils.TimePartitionedBloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimePartitionedBloomFilterTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private static final class MutableClock extends Clock {
+        private Instant now = START;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    void key_shouldBeRememberedUntilItExpires() {
+        MutableClock clock = new MutableClock();
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(Duration.ofHours(1), Duration.ofDays(1),
+                1000, 0.01, clock);
+        UUID key = UUID.randomUUID();
+
+        filter.put(key, START.plus(Duration.ofHours(5)));
+
+        assertTrue(filter.mightContain(key));
+        clock.now = START.plus(Duration.ofHours(5));
+        assertTrue(filter.mightContain(key));
+        clock.now = START.plus(Duration.ofHours(6));
+        assertFalse(filter.mightContain(key));
+    }
+
+    @Test
+    void falsePositiveRate_shouldStayNearTarget() {
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(Duration.ofHours(1), Duration.ofHours(4),
+                10_000, 0.01, new MutableClock());
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID(), START.plus(Duration.ofMinutes(30)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void slotReuse_shouldDropOldPartition() {
+        MutableClock clock = new MutableClock();
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(Duration.ofHours(1), Duration.ofHours(2),
+                100, 0.01, clock);
+        UUID old = UUID.randomUUID();
+        filter.put(old, START.plus(Duration.ofMinutes(10)));
+
+        clock.now = START.plus(Duration.ofHours(3));
+        UUID fresh = UUID.randomUUID();
+        filter.put(fresh, clock.now.plus(Duration.ofMinutes(10)));
+
+        assertTrue(filter.mightContain(fresh));
+        assertFalse(filter.mightContain(old));
+    }
+
+    @Test
+    void expiryBeyondMaxTtl_shouldBeRejected() {
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(Duration.ofHours(1), Duration.ofHours(2),
+                100, 0.01, new MutableClock());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> filter.put(UUID.randomUUID(), START.plus(Duration.ofHours(3))));
+    }
+}
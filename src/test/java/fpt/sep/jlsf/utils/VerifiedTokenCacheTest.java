@@ -0,0 +1,81 @@
+package fpt.sep.jlsf.utils;
+
+import fpt.sep.apjf.utils.JwtKeyManager;
+import fpt.sep.apjf.utils.JwtUtils;
+import fpt.sep.apjf.utils.VerifiedTokenCache;
+import fpt.sep.apjf.utils.VerifiedTokenCache.CachedAuthentication;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItdW5pdC10ZXN0cy1vbmx5LW5vdC1mb3ItcHJvZHVjdGlvbi11c2UtMTIzNDU2Nzg5";
+
+    private JwtKeyManager keyManager;
+    private JwtUtils jwtUtils;
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        keyManager = new JwtKeyManager(SECRET);
+        jwtUtils = new JwtUtils(keyManager, 60_000);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(jwtUtils, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void get_shouldReturnSameEntryForRepeatedToken() {
+        String token = jwtUtils.generateTokenFromUsername(
+                User.withUsername("phan").password("x").authorities("ROLE_USER").build());
+
+        CachedAuthentication first = cache.get(token).orElseThrow();
+        CachedAuthentication second = cache.get(token).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals("phan", first.username());
+        assertEquals("ROLE_USER", first.authorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElseThrow());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_shouldNotCacheInvalidToken() {
+        Optional<CachedAuthentication> result = cache.get("not-a-jwt");
+
+        assertTrue(result.isEmpty());
+        assertTrue(cache.get("not-a-jwt").isEmpty());
+        assertEquals(0.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_shouldRejectTokenSignedWithUnknownKey() {
+        JwtUtils otherIssuer = new JwtUtils(new JwtKeyManager(
+                "b3RoZXItc2VjcmV0LWtleS1mb3ItdW5pdC10ZXN0cy1vbmx5LW5vdC1mb3ItcHJvZHVjdGlvbi0xMjM0NTY3"), 60_000);
+        String foreign = otherIssuer.generateTokenFromUsername(
+                User.withUsername("mallory").password("x").authorities("ROLE_ADMIN").build());
+
+        assertTrue(cache.get(foreign).isEmpty());
+    }
+
+    @Test
+    void get_shouldRejectCachedTokenOnceItsKeyIsRemoved() {
+        String token = jwtUtils.generateTokenFromUsername(
+                User.withUsername("phan").password("x").authorities("ROLE_USER").build());
+        assertTrue(cache.get(token).isPresent());
+
+        // Lần xoay thứ hai bỏ khóa ban đầu
+        keyManager.rotate("b3RoZXItc2VjcmV0LWtleS1mb3ItdW5pdC10ZXN0cy1vbmx5LW5vdC1mb3ItcHJvZHVjdGlvbi0xMjM0NTY3");
+        assertTrue(cache.get(token).isPresent());
+        keyManager.rotate("dGhpcmQtc2VjcmV0LWtleS1mb3ItdW5pdC10ZXN0cy1vbmx5LW5vdC1mb3ItcHJvZHVjdGlvbi0xMjM0NTY3");
+
+        assertTrue(cache.get(token).isEmpty());
+    }
+}